@@ -0,0 +1,86 @@
+package com.halcyon.recurix.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.halcyon.recurix.dto.AnalyticsDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Кэш месячной аналитики в памяти экземпляра.
+ * <p>
+ * Ключ — пользователь, месяц и версия данных пользователя из {@link UserDataVersions}.
+ * После изменения подписок версия растет, и старые записи больше не запрашиваются;
+ * их вытесняют ограничение размера и TTL. Одновременные запросы одного ключа
+ * ждут один и тот же расчет.
+ * <p>
+ * Статистика попаданий экспортируется как метрики кэша {@code analytics}, а время
+ * ответа — таймером {@code recurix.analytics.cache.latency} с тегом {@code result=hit|miss}.
+ */
+@Component
+public class AnalyticsCache {
+
+    private final AsyncCache<Key, AnalyticsDto> cache;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+
+    public AnalyticsCache(
+            MeterRegistry meterRegistry,
+            @Value("${recurix.analytics.cache.max-size:10000}") long maxSize,
+            @Value("${recurix.analytics.cache.ttl:PT10M}") Duration ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "analytics");
+
+        this.hitTimer = latencyTimer(meterRegistry, "hit");
+        this.missTimer = latencyTimer(meterRegistry, "miss");
+    }
+
+    /**
+     * Возвращает сводку из кэша или рассчитывает ее.
+     *
+     * @param userId    ID пользователя.
+     * @param yearMonth Месяц.
+     * @param version   Текущая версия данных пользователя.
+     * @param loader    Расчет сводки при промахе.
+     * @return {@code Mono} со сводкой.
+     */
+    public Mono<AnalyticsDto> get(Long userId, YearMonth yearMonth, long version, Supplier<Mono<AnalyticsDto>> loader) {
+        Key key = new Key(userId, yearMonth, version);
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean loaded = new AtomicBoolean();
+
+            return Mono.fromFuture(cache.get(key, (k, executor) -> {
+                loaded.set(true);
+                return loader.get().toFuture();
+            }), true)
+                    .doOnSuccess(dto -> (loaded.get() ? missTimer : hitTimer)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("recurix.analytics.cache.latency")
+                .description("Time to serve monthly analytics")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Key(Long userId, YearMonth yearMonth, long version) {
+    }
+}
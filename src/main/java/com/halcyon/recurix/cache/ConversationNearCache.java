@@ -0,0 +1,190 @@
+package com.halcyon.recurix.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.halcyon.recurix.service.store.ConversationFields;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Кэш диалогов пользователей в памяти экземпляра перед Redis.
+ * <p>
+ * Хранит закодированные поля хэша диалога, поэтому каждый читатель получает
+ * собственную копию объектов. После записи в Redis экземпляр обновляет свою запись
+ * и публикует ID пользователя в канал {@code conversation:invalidations}; остальные
+ * экземпляры удаляют запись и при следующем чтении загружают ее из Redis заново.
+ * <p>
+ * Пока подписка на канал не установлена, кэш не используется. При переподключении
+ * сообщения могут потеряться, поэтому срок жизни записи ограничен
+ * {@code recurix.conversations.near-cache.ttl}.
+ * <p>
+ * Статистика экспортируется как метрики кэша {@code conversations}, число полученных
+ * инвалидаций — счетчиком {@code recurix.conversations.near_cache.invalidations}.
+ */
+@Component
+@ConditionalOnProperty(name = "recurix.conversations.store", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class ConversationNearCache {
+
+    private static final ChannelTopic INVALIDATIONS = ChannelTopic.of("conversation:invalidations");
+
+    private final Cache<Long, ConversationFields> cache;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final Counter invalidationCounter;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Увеличивается при каждом изменении диалога; загрузка, во время которой он изменился,
+     * может принести устаревшие данные, и ее результат не кэшируется.
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile boolean listening;
+    private Disposable subscription;
+
+    public ConversationNearCache(
+            ReactiveStringRedisTemplate redisTemplate,
+            ReactiveRedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${recurix.conversations.near-cache.max-size:10000}") long maxSize,
+            @Value("${recurix.conversations.near-cache.ttl:PT2M}") Duration ttl
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "conversations");
+
+        this.invalidationCounter = Counter.builder("recurix.conversations.near_cache.invalidations")
+                .description("Conversation invalidations received from other instances")
+                .register(meterRegistry);
+        Gauge.builder("recurix.conversations.near_cache.listening", this, nearCache -> nearCache.listening ? 1 : 0)
+                .description("Whether the conversation near-cache is subscribed to invalidations")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void listen() {
+        subscription = listenerContainer.receiveLater(INVALIDATIONS)
+                .doOnNext(messages -> {
+                    cache.invalidateAll();
+                    listening = true;
+                    log.info("Conversation near-cache subscribed to invalidations.");
+                })
+                .flatMapMany(Function.identity())
+                .doOnNext(message -> onInvalidation(message.getMessage()))
+                .doOnError(e -> {
+                    listening = false;
+                    cache.invalidateAll();
+                    log.warn("Conversation near-cache lost its invalidation subscription: {}", e.getMessage());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .doFinally(signal -> listening = false)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Возвращает поля диалога из кэша или загружает их.
+     *
+     * @param userId ID пользователя.
+     * @param loader Загрузка полей из Redis при промахе.
+     * @return {@code Mono} с полями диалога.
+     */
+    public Mono<ConversationFields> get(Long userId, Supplier<Mono<ConversationFields>> loader) {
+        return Mono.defer(() -> {
+            if (!listening) {
+                return loader.get();
+            }
+
+            ConversationFields cached = cache.getIfPresent(userId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            long seen = changes.get();
+            return loader.get()
+                    .doOnNext(fields -> {
+                        cache.put(userId, fields);
+                        if (changes.get() != seen) {
+                            cache.invalidate(userId);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Отражает в кэше изменение, уже записанное в Redis, и сообщает о нем другим экземплярам.
+     *
+     * @param userId ID пользователя.
+     * @param update Изменение закэшированных полей.
+     * @return {@code Mono<Void>}, завершающийся после публикации инвалидации. Ошибка публикации
+     *         не передается вызывающему: изменение уже записано, а устаревшие записи
+     *         других экземпляров истекут по TTL.
+     */
+    public Mono<Void> written(Long userId, UnaryOperator<ConversationFields> update) {
+        return Mono.defer(() -> {
+            changes.incrementAndGet();
+            cache.asMap().computeIfPresent(userId, (id, fields) -> update.apply(fields));
+
+            return redisTemplate.convertAndSend(INVALIDATIONS.getTopic(), instanceId + ":" + userId)
+                    .then()
+                    .onErrorResume(e -> {
+                        log.warn("Failed to publish conversation invalidation for user {}: {}", userId, e.getMessage());
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    /**
+     * Удаляет запись этого экземпляра, например, когда выяснилось, что она устарела.
+     *
+     * @param userId ID пользователя.
+     */
+    public void invalidate(Long userId) {
+        changes.incrementAndGet();
+        cache.invalidate(userId);
+    }
+
+    private void onInvalidation(String message) {
+        int separator = message.lastIndexOf(':');
+        if (separator < 0 || instanceId.equals(message.substring(0, separator))) {
+            return;
+        }
+
+        changes.incrementAndGet();
+        cache.invalidate(Long.parseLong(message.substring(separator + 1)));
+        invalidationCounter.increment();
+    }
+}
@@ -0,0 +1,89 @@
+package com.halcyon.recurix.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.halcyon.recurix.service.pagination.SubscriptionSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Кэш снимков подписок пользователей в памяти экземпляра, из которых строятся
+ * страницы и сортировки списка.
+ * <p>
+ * Ключ — пользователь, версия данных пользователя из {@link UserDataVersions} и дата,
+ * на которую вычислены ближайшие даты платежей. Версия хранится в Redis и общая для всех
+ * экземпляров, поэтому изменение на одном экземпляре сразу делает снимки на остальных
+ * недостижимыми; их вытесняют ограничение объема и TTL. Одновременные запросы одного
+ * ключа ждут одну загрузку.
+ * <p>
+ * Объем ограничен суммарным примерным размером снимков {@code recurix.subscriptions.snapshot.max-bytes}
+ * и экспортируется как {@code recurix.subscriptions.snapshot.bytes}; статистика попаданий —
+ * как метрики кэша {@code subscription_snapshots}.
+ */
+@Component
+public class SubscriptionSnapshotCache {
+
+    private final AsyncCache<Key, SubscriptionSnapshot> cache;
+    private final int maxSubscriptions;
+
+    public SubscriptionSnapshotCache(
+            MeterRegistry meterRegistry,
+            @Value("${recurix.subscriptions.snapshot.max-bytes:33554432}") long maxBytes,
+            @Value("${recurix.subscriptions.snapshot.ttl:PT10M}") Duration ttl,
+            @Value("${recurix.subscriptions.snapshot.max-subscriptions:200}") int maxSubscriptions
+    ) {
+        this.maxSubscriptions = maxSubscriptions;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, SubscriptionSnapshot snapshot) -> (int) Math.min(snapshot.sizeBytes(), Integer.MAX_VALUE))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "subscription_snapshots");
+
+        Gauge.builder("recurix.subscriptions.snapshot.bytes", cache.synchronous(), SubscriptionSnapshotCache::weightedSize)
+                .description("Approximate memory held by cached subscription snapshots")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Наибольшее количество подписок пользователя, для которого строится снимок;
+     *         страницы пользователей с большим числом подписок читаются из БД.
+     */
+    public int maxSubscriptions() {
+        return maxSubscriptions;
+    }
+
+    /**
+     * Возвращает снимок из кэша или загружает его.
+     *
+     * @param userId  ID пользователя.
+     * @param version Текущая версия данных пользователя.
+     * @param today   Дата, на которую вычислены даты платежей.
+     * @param loader  Загрузка снимка при промахе.
+     * @return {@code Mono} со снимком.
+     */
+    public Mono<SubscriptionSnapshot> get(Long userId, long version, LocalDate today, Supplier<Mono<SubscriptionSnapshot>> loader) {
+        Key key = new Key(userId, version, today);
+
+        return Mono.defer(() -> Mono.fromFuture(cache.get(key, (k, executor) -> loader.get().toFuture()), true));
+    }
+
+    private static double weightedSize(Cache<Key, SubscriptionSnapshot> cache) {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private record Key(Long userId, long version, LocalDate today) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.halcyon.recurix.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Версии данных пользователей, общие для всех экземпляров приложения.
+ * <p>
+ * Версия — счетчик в Redis, который увеличивается при каждом изменении подписок
+ * пользователя. Кэши включают версию в ключ, поэтому после изменения старые записи
+ * просто перестают находиться и вытесняются сами, без поиска и удаления ключей.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDataVersions {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    /**
+     * @param userId ID пользователя.
+     * @return {@code Mono} с текущей версией данных; {@code 0}, если данные еще не менялись.
+     */
+    public Mono<Long> current(Long userId) {
+        return redisTemplate.opsForValue()
+                .get(versionKey(userId))
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Увеличивает версию данных пользователя.
+     *
+     * @param userId ID пользователя.
+     * @return {@code Mono} с новой версией.
+     */
+    public Mono<Long> bump(Long userId) {
+        return redisTemplate.opsForValue().increment(versionKey(userId));
+    }
+
+    private String versionKey(Long userId) {
+        return "data_version:" + userId;
+    }
+}
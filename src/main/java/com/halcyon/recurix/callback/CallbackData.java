@@ -51,4 +51,7 @@ public final class CallbackData {
 
     public static final String ANALYTICS_NAV_PREFIX = "analytics_nav_";
     public static final String ANALYTICS_BY_YEAR = "analytics_by_year";
+    public static final String ANALYTICS_YEAR_NAV_PREFIX = "analytics_year_";
+    public static final String ANALYTICS_CHART_MONTH_PREFIX = "analytics_chart_m_";
+    public static final String ANALYTICS_CHART_YEAR_PREFIX = "analytics_chart_y_";
 }
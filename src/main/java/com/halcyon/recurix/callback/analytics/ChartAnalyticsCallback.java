@@ -0,0 +1,86 @@
+package com.halcyon.recurix.callback.analytics;
+
+import com.halcyon.recurix.callback.Callback;
+import com.halcyon.recurix.callback.CallbackData;
+import com.halcyon.recurix.chart.ChartService;
+import com.halcyon.recurix.dto.CategorySpendingDto;
+import com.halcyon.recurix.message.AnalyticsMessageFactory;
+import com.halcyon.recurix.model.RecurixUser;
+import com.halcyon.recurix.service.AnalyticsService;
+import com.halcyon.recurix.service.LocalMessageService;
+import com.halcyon.recurix.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import reactor.core.publisher.Mono;
+
+import java.io.Serializable;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Отправляет диаграмму расходов по категориям для экранов месячной и годовой аналитики.
+ * <p>
+ * Диаграмма приходит отдельным сообщением, текстовый экран аналитики не меняется.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChartAnalyticsCallback implements Callback {
+
+    private final UserService userService;
+    private final AnalyticsService analyticsService;
+    private final AnalyticsMessageFactory messageFactory;
+    private final ChartService chartService;
+    private final LocalMessageService messageService;
+
+    @Override
+    public boolean supports(String callbackData) {
+        return callbackData != null && (callbackData.startsWith(CallbackData.ANALYTICS_CHART_MONTH_PREFIX)
+                || callbackData.startsWith(CallbackData.ANALYTICS_CHART_YEAR_PREFIX));
+    }
+
+    @Override
+    public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
+        CallbackQuery query = update.getCallbackQuery();
+        Long chatId = query.getMessage().getChatId();
+
+        log.info("User {} requested chart {}", query.getFrom().getId(), query.getData());
+
+        return userService.findOrCreateUser(query.getFrom())
+                .flatMap(user -> chart(user, query.getData()))
+                .flatMap(chart -> chart.categories().isEmpty()
+                        ? Mono.just(answer(query, messageService.getMessage("analytics.chart.empty")))
+                        : chartService.sendCategoryChart(chatId, chart.categories(), chart.caption())
+                                .thenReturn(answer(query, null)));
+    }
+
+    private Mono<Chart> chart(RecurixUser user, String callbackData) {
+        if (callbackData.startsWith(CallbackData.ANALYTICS_CHART_MONTH_PREFIX)) {
+            YearMonth month = YearMonth.parse(callbackData.substring(CallbackData.ANALYTICS_CHART_MONTH_PREFIX.length()));
+
+            return analyticsService.getAnalyticsForMonth(user, month)
+                    .map(analytics -> new Chart(analytics.spendingByCategory(), messageFactory.createMonthChartCaption(month)));
+        }
+
+        Year year = Year.parse(callbackData.substring(CallbackData.ANALYTICS_CHART_YEAR_PREFIX.length()));
+
+        return analyticsService.getAnalyticsForYear(user, year)
+                .map(analytics -> new Chart(analytics.spendingByCategory(), messageFactory.createYearChartCaption(year)));
+    }
+
+    private AnswerCallbackQuery answer(CallbackQuery query, String text) {
+        return AnswerCallbackQuery.builder()
+                .callbackQueryId(query.getId())
+                .text(text)
+                .build();
+    }
+
+    private record Chart(List<CategorySpendingDto> categories, String caption) {
+    }
+}
@@ -2,26 +2,62 @@ package com.halcyon.recurix.callback.analytics;
 
 import com.halcyon.recurix.callback.Callback;
 import com.halcyon.recurix.callback.CallbackData;
+import com.halcyon.recurix.dto.YearAnalyticsDto;
+import com.halcyon.recurix.message.AnalyticsMessageFactory;
+import com.halcyon.recurix.service.AnalyticsService;
+import com.halcyon.recurix.service.KeyboardService;
+import com.halcyon.recurix.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.ParseMode;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import reactor.core.publisher.Mono;
 
 import java.io.Serializable;
+import java.time.Year;
 
+/**
+ * Обрабатывает экран годовой аналитики и навигацию между годами.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class YearAnalyticsCallback implements Callback {
+
+    private final UserService userService;
+    private final AnalyticsService analyticsService;
+    private final AnalyticsMessageFactory messageFactory;
+    private final KeyboardService keyboardService;
+
     @Override
     public boolean supports(String callbackData) {
-        return CallbackData.ANALYTICS_BY_YEAR.equals(callbackData);
+        return callbackData != null && (callbackData.equals(CallbackData.ANALYTICS_BY_YEAR) || callbackData.startsWith(CallbackData.ANALYTICS_YEAR_NAV_PREFIX));
     }
 
     @Override
     public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
-        return null;
+        String callbackData = update.getCallbackQuery().getData();
+        Year targetYear = (callbackData.startsWith(CallbackData.ANALYTICS_YEAR_NAV_PREFIX))
+                ? Year.parse(callbackData.substring(CallbackData.ANALYTICS_YEAR_NAV_PREFIX.length()))
+                : Year.now();
+
+        log.info("User {} requested analytics for year {}", update.getCallbackQuery().getFrom().getId(), targetYear);
+
+        return userService.findOrCreateUser(update.getCallbackQuery().getFrom())
+                .flatMap(user -> analyticsService.getAnalyticsForYear(user, targetYear))
+                .map(yearAnalyticsDto -> createYearAnalyticsMessage(update, yearAnalyticsDto));
+    }
+
+    private EditMessageText createYearAnalyticsMessage(Update update, YearAnalyticsDto yearAnalyticsDto) {
+        return EditMessageText.builder()
+                .chatId(update.getCallbackQuery().getMessage().getChatId())
+                .messageId(update.getCallbackQuery().getMessage().getMessageId())
+                .text(messageFactory.createYearAnalyticsMessage(yearAnalyticsDto))
+                .parseMode(ParseMode.MARKDOWN)
+                .replyMarkup(keyboardService.getYearAnalyticsKeyboard(yearAnalyticsDto.year()))
+                .build();
     }
 }
@@ -61,52 +61,61 @@ public class CalendarApplyCallback implements Callback {
     public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
         Long userId = update.getCallbackQuery().getFrom().getId();
 
-        return stateService.getState(userId)
-                .filter(SUPPORTED_STATES::contains)
-                .flatMap(state -> applyDateAndProceed(update))
-                .switchIfEmpty(Mono.defer(Mono::empty));
+        return stateService.getConversation(userId)
+                .filter(conversation -> conversation.state() != null && SUPPORTED_STATES.contains(conversation.state()))
+                .filter(conversation -> conversation.context() != null)
+                .flatMap(conversation -> applyDateAndProceed(update, conversation.state(), conversation.context()));
     }
 
     /**
      * Применяет выбранную дату, обновляет контекст и состояние, а затем
      * отображает финальный экран подтверждения.
      *
-     * @param update Входящий объект Update.
+     * @param update  Входящий объект Update.
+     * @param state   Текущий шаг диалога.
+     * @param context Текущий контекст диалога.
      * @return Mono с ответным сообщением {@link EditMessageText}.
      */
-    private Mono<BotApiMethod<? extends Serializable>> applyDateAndProceed(Update update) {
+    private Mono<BotApiMethod<? extends Serializable>> applyDateAndProceed(
+            Update update,
+            ConversationState state,
+            SubscriptionContext context) {
         CallbackQuery query = update.getCallbackQuery();
         LocalDate selectedDate = LocalDate.parse(query.getData().substring(CallbackData.CALENDAR_APPLY_PREFIX.length()));
         Long userId = query.getFrom().getId();
 
         log.info("User {} applied date {}.", userId, selectedDate);
 
-        return stateService.getContext(userId, SubscriptionContext.class)
-                .flatMap(context -> updateContextWithDate(userId, context, selectedDate))
+        return updateContextWithDate(userId, state, context, selectedDate)
                 .map(finalContext -> createConfirmationMessage(query, finalContext));
     }
 
     /**
-     * Обновляет контекст подписки, устанавливая новую дату и изменяя состояние диалога.
+     * Атомарно обновляет контекст подписки, устанавливая новую дату, и изменяет состояние диалога:
+     * новая подписка переходит к подтверждению, а при редактировании режим ввода завершается.
      *
      * @param userId       ID пользователя.
+     * @param state        Шаг диалога, на котором была выбрана дата.
      * @param context      Текущий контекст диалога.
      * @param selectedDate Выбранная пользователем дата.
-     * @return {@code Mono}, содержащий обновленный контекст.
+     * @return {@code Mono}, содержащий обновленный контекст, или пустой {@code Mono},
+     *         если диалог уже перешел на другой шаг.
      */
-    private Mono<SubscriptionContext> updateContextWithDate(Long userId, SubscriptionContext context, LocalDate selectedDate) {
+    private Mono<SubscriptionContext> updateContextWithDate(
+            Long userId,
+            ConversationState state,
+            SubscriptionContext context,
+            LocalDate selectedDate) {
         Subscription subscription = context.getSubscription();
         subscription.setPaymentDate(selectedDate);
 
-        if (subscription.getId() == null) {
-            return stateService.setContext(userId, context)
-                    .thenReturn(stateService.setState(userId, ConversationState.AWAITING_SUBSCRIPTION_CONFIRMATION))
-                    .thenReturn(context);
-        }
+        ConversationState next = subscription.getId() == null
+                ? ConversationState.AWAITING_SUBSCRIPTION_CONFIRMATION
+                : null;
 
-        return stateService.setContext(userId, context)
-                .then(stateService.clearState(userId))
-                .thenReturn(context);
+        return stateService.transition(userId, state, context, next)
+                .filter(Boolean::booleanValue)
+                .map(applied -> context);
     }
 
     /**
@@ -41,8 +41,9 @@ public class AddMenuCallback implements Callback {
      * Метод выполняет следующие действия:
      * <ol>
      * <li>Логирует начало процесса.</li>
-     * <li>Создает и сохраняет в Redis пустой контекст {@link SubscriptionContext} для диалога.</li>
-     * <li>Переводит пользователя в состояние {@link ConversationState#AWAITING_SUBSCRIPTION_NAME}.</li>
+     * <li>Создает пустой контекст {@link SubscriptionContext} для диалога.</li>
+     * <li>Одним атомарным переходом сохраняет контекст и переводит пользователя в состояние
+     * {@link ConversationState#AWAITING_SUBSCRIPTION_NAME}.</li>
      * <li>Отправляет пользователю сообщение с запросом на ввод названия подписки.</li>
      * </ol>
      *
@@ -57,8 +58,8 @@ public class AddMenuCallback implements Callback {
 
         var context = new SubscriptionContext(new Subscription(), messageId);
 
-        Mono<Void> initializeConversation = stateService.setContext(userId, context)
-                .then(stateService.setState(userId, ConversationState.AWAITING_SUBSCRIPTION_NAME));
+        Mono<Boolean> initializeConversation = stateService.transition(
+                userId, null, context, ConversationState.AWAITING_SUBSCRIPTION_NAME);
 
         return initializeConversation.then(Mono.fromCallable(() -> EditMessageText.builder()
                 .chatId(userId)
@@ -38,8 +38,8 @@ import java.io.Serializable;
  * <li>Отправляет пользователю всплывающее уведомление об успешном удалении.</li>
  * <li>Находит внутреннего пользователя системы по его Telegram ID.</li>
  * <li>Удаляет подписку из базы данных.</li>
- * <li>Пересчитывает корректный номер страницы для отображения (на случай, если удаленная
- * подписка была последней на странице).</li>
+ * <li>Показывает ту же страницу списка; если удаленная подписка была последней на ней,
+ * сервис вернет предыдущую страницу.</li>
  * <li>Обновляет сообщение, показывая актуализированный список подписок.</li>
  * </ol>
  *
@@ -119,34 +119,14 @@ public class DeleteExecuteCallback implements Callback {
      */
     private Mono<BotApiMethod<? extends Serializable>>
             deleteAndRefreshList(CallbackQuery query, CallbackContext context, RecurixUser recurixUser) {
+        Pageable pageable = PageRequest.of(context.originalPageNumber, PaginationConstants.DEFAULT_PAGE_SIZE,
+                PaginationConstants.DEFAULT_SORT);
+
         return subscriptionService.deleteById(context.subscriptionId)
-                .then(subscriptionService.countByUserId(recurixUser.id()))
-                .flatMap(totalCount -> {
-                    int targetPage = calculateTargetPage(totalCount, context.originalPageNumber);
-                    Pageable pageable = PageRequest.of(targetPage, PaginationConstants.DEFAULT_PAGE_SIZE,
-                            PaginationConstants.DEFAULT_SORT);
-                    return subscriptionService.getSubscriptionsAsPage(recurixUser.id(), pageable);
-                })
+                .then(Mono.defer(() -> subscriptionService.getSubscriptionsAsPage(recurixUser.id(), pageable)))
                 .map(page -> createListPageMessage(query, page));
     }
 
-    /**
-     * Вычисляет корректный номер страницы для отображения после удаления элемента.
-     *
-     * @param totalCount         Общее количество элементов после удаления.
-     * @param originalPageNumber Страница, на которой находился пользователь.
-     * @return Номер страницы, которую следует показать пользователю.
-     */
-    private int calculateTargetPage(int totalCount, int originalPageNumber) {
-        int pageSize = PaginationConstants.DEFAULT_PAGE_SIZE;
-        int newTotalPages = (totalCount == 0)
-                ? 1
-                : (int) Math.ceil((double) totalCount / pageSize);
-        int targetPage = Math.min(originalPageNumber, newTotalPages - 1);
-
-        return Math.max(targetPage, 0);
-    }
-
     /**
      * Создает ответное сообщение со страницей подписок.
      *
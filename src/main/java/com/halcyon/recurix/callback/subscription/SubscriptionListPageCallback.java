@@ -3,10 +3,13 @@ package com.halcyon.recurix.callback.subscription;
 import com.halcyon.recurix.callback.Callback;
 import com.halcyon.recurix.callback.CallbackData;
 import com.halcyon.recurix.message.SubscriptionMessageFactory;
+import com.halcyon.recurix.model.Subscription;
 import com.halcyon.recurix.service.KeyboardService;
 import com.halcyon.recurix.service.SubscriptionService;
 import com.halcyon.recurix.service.UserService;
 import com.halcyon.recurix.service.context.SubscriptionListContext;
+import com.halcyon.recurix.service.pagination.Page;
+import com.halcyon.recurix.service.pagination.PageCursor;
 import com.halcyon.recurix.service.pagination.PaginationConstants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +25,7 @@ import org.telegram.telegrambots.meta.api.objects.Update;
 import reactor.core.publisher.Mono;
 
 import java.io.Serializable;
+import java.util.function.Function;
 
 /**
  * Обрабатывает callback-запросы для навигации между страницами списка подписок.
@@ -47,9 +51,10 @@ public class SubscriptionListPageCallback implements Callback {
     /**
      * Загружает и отображает указанную страницу подписок пользователя.
      * <p>
-     * Метод получает текущие настройки сортировки пользователя из Redis,
-     * запрашивает соответствующую страницу данных и обновляет исходное
-     * сообщение новым контентом и клавиатурой пагинации.
+     * Callback-данные содержат {@link PageCursor} с сортировкой, с которой была построена
+     * исходная страница, и ключом ее граничной строки; соседняя страница читается по этому ключу.
+     * Кнопки сообщений, отправленных до появления курсора, содержат только номер страницы —
+     * такая страница выбирается по смещению с сортировкой по умолчанию.
      *
      * @param update Входящий объект Update, содержащий callback-запрос.
      * @return {@code Mono} с объектом {@link EditMessageText} для обновления сообщения.
@@ -58,21 +63,31 @@ public class SubscriptionListPageCallback implements Callback {
     public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
         CallbackQuery callbackQuery = update.getCallbackQuery();
         Integer messageId = callbackQuery.getMessage().getMessageId();
-        int pageNumber = Integer.parseInt(callbackQuery.getData().substring(CallbackData.SUB_LIST_PAGE_PREFIX.length()));
+        String payload = callbackQuery.getData().substring(CallbackData.SUB_LIST_PAGE_PREFIX.length());
 
-        log.info("User {} requested subscription list page #{}", callbackQuery.getFrom().getId(), pageNumber);
+        log.info("User {} requested subscription list page {}", callbackQuery.getFrom().getId(), payload);
 
-        Pageable pageable = PageRequest.of(pageNumber, PaginationConstants.DEFAULT_PAGE_SIZE, PaginationConstants.DEFAULT_SORT);
-        var defaultContext = new SubscriptionListContext("paymentDate", Sort.Direction.ASC);
+        SubscriptionListContext context;
+        Function<Long, Mono<Page<Subscription>>> pageLoader;
+        if (payload.chars().allMatch(Character::isDigit)) {
+            Pageable pageable = PageRequest.of(Integer.parseInt(payload), PaginationConstants.DEFAULT_PAGE_SIZE,
+                    PaginationConstants.DEFAULT_SORT);
+            context = new SubscriptionListContext("paymentDate", Sort.Direction.ASC);
+            pageLoader = userId -> subscriptionService.getSubscriptionsAsPage(userId, pageable);
+        } else {
+            PageCursor cursor = PageCursor.decode(payload);
+            context = cursor.listContext();
+            pageLoader = userId -> subscriptionService.getSubscriptionsAsPage(userId, cursor);
+        }
 
         return userService.findOrCreateUser(callbackQuery.getFrom())
-                .flatMap(user -> subscriptionService.getSubscriptionsAsPage(user.id(), pageable))
+                .flatMap(user -> pageLoader.apply(user.id()))
                 .map(page -> EditMessageText.builder()
                         .chatId(callbackQuery.getMessage().getChatId())
                         .messageId(messageId)
                         .text(subscriptionMessageFactory.formatSubscriptionsPage(page, messageId))
                         .parseMode(ParseMode.HTML)
-                        .replyMarkup(keyboardService.getSubscriptionsPageKeyboard(page, defaultContext))
+                        .replyMarkup(keyboardService.getSubscriptionsPageKeyboard(page, context))
                         .build());
     }
 }
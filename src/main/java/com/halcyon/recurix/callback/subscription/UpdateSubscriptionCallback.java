@@ -56,7 +56,7 @@ public class UpdateSubscriptionCallback implements Callback {
     public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
         Long userId = update.getCallbackQuery().getFrom().getId();
 
-        return stateService.getContext(userId, SubscriptionContext.class)
+        return stateService.getContext(userId)
                 .flatMap(context -> {
                     Subscription subscriptionToSave = context.getSubscription();
                     log.info("User {} is saving changes to subscription {}", userId, subscriptionToSave.getId());
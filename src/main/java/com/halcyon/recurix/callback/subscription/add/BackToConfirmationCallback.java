@@ -54,7 +54,7 @@ public class BackToConfirmationCallback implements Callback {
         Long userId = callbackQuery.getMessage().getChatId();
         Integer messageId = callbackQuery.getMessage().getMessageId();
 
-        return stateService.getContext(userId, SubscriptionContext.class)
+        return stateService.getContext(userId)
                 .map(context -> subscriptionMessageFactory.createEditMessage(
                         userId,
                         messageId,
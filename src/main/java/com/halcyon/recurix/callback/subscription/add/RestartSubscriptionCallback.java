@@ -4,9 +4,11 @@ import com.halcyon.recurix.callback.Callback;
 import com.halcyon.recurix.callback.CallbackData;
 import com.halcyon.recurix.client.TelegramApiClient;
 import com.halcyon.recurix.handler.ConversationState;
+import com.halcyon.recurix.model.Subscription;
 import com.halcyon.recurix.service.ConversationStateService;
 import com.halcyon.recurix.service.KeyboardService;
 import com.halcyon.recurix.service.LocalMessageService;
+import com.halcyon.recurix.service.context.SubscriptionContext;
 import java.io.Serializable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -66,14 +68,17 @@ public class RestartSubscriptionCallback implements Callback {
     }
 
     /**
-     * Инициализирует и начинает диалог добавления подписки.
+     * Инициализирует и начинает диалог добавления подписки: пустой контекст и первый шаг
+     * записываются одним атомарным переходом, поэтому ранее введенные данные не остаются в контексте.
      *
      * @param userId    ID пользователя.
      * @param messageId ID сообщения для редактирования.
      * @return {@code Mono} с первым сообщением диалога.
      */
     private Mono<BotApiMethod<? extends Serializable>> startCreateSubscriptionDialog(Long userId, Integer messageId) {
-        return stateService.setState(userId, ConversationState.AWAITING_SUBSCRIPTION_NAME)
+        var context = new SubscriptionContext(new Subscription(), messageId);
+
+        return stateService.transition(userId, null, context, ConversationState.AWAITING_SUBSCRIPTION_NAME)
                 .then(Mono.fromCallable(() -> EditMessageText.builder()
                         .chatId(userId)
                         .messageId(messageId)
@@ -99,7 +99,7 @@ public class SaveSubscriptionCallback implements Callback {
      */
     private Mono<Subscription> saveSubscriptionFromContext(org.telegram.telegrambots.meta.api.objects.User telegramUser) {
         Mono<RecurixUser> userMono = userService.findOrCreateUser(telegramUser);
-        Mono<SubscriptionContext> contextMono = stateService.getContext(telegramUser.getId(), SubscriptionContext.class);
+        Mono<SubscriptionContext> contextMono = stateService.getContext(telegramUser.getId());
 
         return Mono.zip(contextMono, userMono)
                 .flatMap(this::persistSubscription);
@@ -5,7 +5,6 @@ import com.halcyon.recurix.callback.CallbackData;
 import com.halcyon.recurix.message.SubscriptionMessageFactory;
 import com.halcyon.recurix.service.ConversationStateService;
 import com.halcyon.recurix.service.KeyboardService;
-import com.halcyon.recurix.service.context.SubscriptionContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -60,7 +59,7 @@ public class BackToEditCallback implements Callback {
 
         log.info("User {} is returning to the main edit menu.", userId);
 
-        return stateService.getContext(userId, SubscriptionContext.class)
+        return stateService.getContext(userId)
                 .map(context -> subscriptionMessageFactory.createEditMessage(
                         userId,
                         messageId,
@@ -5,7 +5,6 @@ import com.halcyon.recurix.handler.ConversationState;
 import com.halcyon.recurix.service.ConversationStateService;
 import com.halcyon.recurix.service.KeyboardService;
 import com.halcyon.recurix.service.LocalMessageService;
-import com.halcyon.recurix.service.context.SubscriptionContext;
 import java.io.Serializable;
 import lombok.extern.slf4j.Slf4j;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
@@ -40,6 +39,10 @@ public abstract class BaseEditCallback implements Callback {
     /**
      * Переводит диалог в новое состояние и отправляет пользователю сообщение с запросом на ввод данных.
      * <p>
+     * ID сообщения для редактирования и новое состояние записываются одним атомарным переходом
+     * ({@link ConversationStateService#transition}). Если контекста нет или диалог успел перейти
+     * на другой шаг, ответа нет.
+     * <p>
      * Этот универсальный метод используется для редактирования полей, требующих текстового ввода от
      * пользователя
      * (например, названия, цены, даты).
@@ -65,14 +68,14 @@ public abstract class BaseEditCallback implements Callback {
 
         log.info("User {} is entering state {} to edit a subscription field.", userId, nextState);
 
-        return stateService.setState(userId, nextState)
-                .then(
-                        stateService.getContext(userId, SubscriptionContext.class)
-                                .flatMap(context -> {
-                                    context.setMessageToEditId(messageId);
-                                    return stateService.setContext(userId, context);
-                                }))
-                .then(Mono.fromCallable(() -> EditMessageText.builder()
+        return stateService.getConversation(userId)
+                .flatMap(conversation -> Mono.justOrEmpty(conversation.context())
+                        .flatMap(context -> {
+                            context.setMessageToEditId(messageId);
+                            return stateService.transition(userId, conversation.state(), context, nextState);
+                        }))
+                .filter(Boolean::booleanValue)
+                .flatMap(applied -> Mono.fromCallable(() -> EditMessageText.builder()
                         .chatId(userId)
                         .messageId(messageId)
                         .text(messageService.getMessage(messageCode))
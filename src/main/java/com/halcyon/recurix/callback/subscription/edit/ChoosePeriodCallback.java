@@ -55,7 +55,7 @@ public class ChoosePeriodCallback implements Callback {
 
         log.info("User {} selected renewal period: {} months", context.userId, context.months);
 
-        return stateService.getContext(context.userId, SubscriptionContext.class)
+        return stateService.getContext(context.userId)
                 .flatMap(subscriptionContext -> updateContextAndProceed(context, subscriptionContext))
                 .map(finalContext -> createConfirmationMessage(update.getCallbackQuery(), finalContext));
     }
@@ -58,7 +58,7 @@ public class EditSubscriptionCallback implements Callback {
 
         log.info("User {} entered the subscription edit menu.", userId);
 
-        return stateService.getContext(userId, SubscriptionContext.class)
+        return stateService.getContext(userId)
                 .map(context -> subscriptionMessageFactory.createEditMessage(
                         userId,
                         messageId,
@@ -0,0 +1,201 @@
+package com.halcyon.recurix.chart;
+
+import com.halcyon.recurix.dto.CategorySpendingDto;
+import com.halcyon.recurix.support.Money;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Arc2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import javax.imageio.ImageIO;
+
+/**
+ * Рисует круговую диаграмму расходов по категориям через Java2D (без дисплея).
+ * <p>
+ * Картинка зависит только от списка категорий: период и прочие подписи выводятся
+ * в подписи к сообщению. Поэтому одинаковые списки дают одинаковые картинки, и их
+ * можно кэшировать по {@link #contentHash(List)}.
+ */
+public final class CategoryChartRenderer {
+
+    /**
+     * Версия оформления. Входит в хэш, чтобы после изменения отрисовки старые картинки
+     * и {@code file_id} перестали использоваться.
+     */
+    static final int RENDER_VERSION = 1;
+
+    static final int WIDTH = 960;
+    static final int HEIGHT = 540;
+
+    private static final int MAX_SLICES = 8;
+    private static final int PIE_SIZE = 420;
+    private static final int PADDING = 60;
+
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color TEXT = new Color(0x33, 0x33, 0x33);
+    private static final Color[] PALETTE = {
+            new Color(0x4E79A7), new Color(0xF28E2B), new Color(0xE15759), new Color(0x76B7B2),
+            new Color(0x59A14F), new Color(0xEDC948), new Color(0xB07AA1), new Color(0xFF9DA7),
+            new Color(0x9C755F)
+    };
+
+    private CategoryChartRenderer() {
+    }
+
+    /**
+     * Вычисляет хэш содержимого диаграммы.
+     * <p>
+     * Суммы учитываются в минимальных единицах, поэтому представление не влияет на хэш;
+     * порядок категорий учитывается.
+     *
+     * @param categories Расходы по категориям.
+     * @return SHA-256 в шестнадцатеричном виде.
+     */
+    public static String contentHash(List<CategorySpendingDto> categories) {
+        MessageDigest digest = sha256();
+        digest.update((byte) RENDER_VERSION);
+
+        for (CategorySpendingDto category : categories) {
+            digest.update(Objects.requireNonNullElse(category.category(), "").getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(category.total().currency().getCurrencyCode().getBytes(StandardCharsets.US_ASCII));
+            digest.update(Long.toString(category.total().minorUnits()).getBytes(StandardCharsets.US_ASCII));
+            digest.update((byte) '\n');
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Рисует диаграмму в PNG.
+     * <p>
+     * Категории после {@value #MAX_SLICES}-й объединяются в одну долю «прочее».
+     *
+     * @param categories      Расходы по категориям, от большей к меньшей.
+     * @param noCategoryLabel Подпись для подписок без категории.
+     * @param otherLabel      Подпись для объединенных мелких категорий.
+     * @return PNG-изображение.
+     */
+    public static byte[] render(List<CategorySpendingDto> categories, String noCategoryLabel, String otherLabel) {
+        List<CategorySpendingDto> slices = slices(categories, otherLabel);
+        Money total = sum(slices);
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(BACKGROUND);
+            graphics.fillRect(0, 0, WIDTH, HEIGHT);
+
+            drawPie(graphics, slices, total);
+            drawLegend(graphics, slices, total, noCategoryLabel);
+        } finally {
+            graphics.dispose();
+        }
+
+        return toPng(image);
+    }
+
+    private static void drawPie(Graphics2D graphics, List<CategorySpendingDto> slices, Money total) {
+        int top = (HEIGHT - PIE_SIZE) / 2;
+        double start = 90;
+
+        graphics.setStroke(new BasicStroke(2f));
+        for (int i = 0; i < slices.size(); i++) {
+            double extent = total.signum() <= 0
+                    ? 360.0 / slices.size()
+                    : (double) slices.get(i).total().minorUnits() / total.minorUnits() * 360;
+            Arc2D arc = new Arc2D.Double(PADDING, top, PIE_SIZE, PIE_SIZE, start, -extent, Arc2D.PIE);
+
+            graphics.setColor(PALETTE[i % PALETTE.length]);
+            graphics.fill(arc);
+            graphics.setColor(BACKGROUND);
+            graphics.draw(arc);
+            start -= extent;
+        }
+    }
+
+    private static void drawLegend(Graphics2D graphics, List<CategorySpendingDto> slices, Money total, String noCategoryLabel) {
+        int left = PADDING * 2 + PIE_SIZE;
+        int lineHeight = 44;
+        int top = (HEIGHT - lineHeight * slices.size()) / 2 + lineHeight / 2;
+
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 22));
+        for (int i = 0; i < slices.size(); i++) {
+            CategorySpendingDto slice = slices.get(i);
+            int y = top + i * lineHeight;
+
+            graphics.setColor(PALETTE[i % PALETTE.length]);
+            graphics.fillRoundRect(left, y - 16, 20, 20, 6, 6);
+
+            graphics.setColor(TEXT);
+            graphics.drawString("%s — %s ₽ (%s%%)".formatted(
+                    truncate(Objects.requireNonNullElse(slice.category(), noCategoryLabel)),
+                    slice.total().toBigDecimal().toPlainString(),
+                    percentage(slice.total(), total)), left + 32, y);
+        }
+    }
+
+    private static List<CategorySpendingDto> slices(List<CategorySpendingDto> categories, String otherLabel) {
+        if (categories.size() <= MAX_SLICES) {
+            return categories;
+        }
+
+        List<CategorySpendingDto> slices = new ArrayList<>(categories.subList(0, MAX_SLICES - 1));
+        slices.add(new CategorySpendingDto(otherLabel, sum(categories.subList(MAX_SLICES - 1, categories.size()))));
+        return slices;
+    }
+
+    private static Money sum(List<CategorySpendingDto> categories) {
+        long total = 0;
+        for (CategorySpendingDto category : categories) {
+            total += category.total().minorUnits();
+        }
+        return Money.ofMinor(total);
+    }
+
+    /**
+     * Процент с одним знаком после точки, без лишнего нуля: {@code 12.5}, {@code 40}.
+     */
+    private static String percentage(Money part, Money total) {
+        long permille = part.shareOf(total, 1000);
+        return permille % 10 == 0
+                ? String.valueOf(permille / 10)
+                : permille / 10 + "." + Math.abs(permille % 10);
+    }
+
+    private static String truncate(String category) {
+        return category.length() <= 20 ? category : category.substring(0, 19) + "…";
+    }
+
+    private static byte[] toPng(BufferedImage image) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(64 * 1024);
+        try {
+            ImageIO.write(image, "png", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
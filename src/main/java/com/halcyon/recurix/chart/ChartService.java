@@ -0,0 +1,151 @@
+package com.halcyon.recurix.chart;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.halcyon.recurix.client.TelegramApiClient;
+import com.halcyon.recurix.dto.CategorySpendingDto;
+import com.halcyon.recurix.service.LocalMessageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Отправляет диаграммы расходов по категориям.
+ * <p>
+ * Диаграмма адресуется хэшем своего содержимого ({@link CategoryChartRenderer#contentHash}).
+ * Порядок поиска:
+ * <ol>
+ *     <li>{@code file_id} в Redis — изображение уже загружено в Telegram и отправляется по ссылке;</li>
+ *     <li>PNG в кэше экземпляра — загружается без повторной отрисовки;</li>
+ *     <li>отрисовка на отдельном ограниченном планировщике, чтобы не занимать потоки event loop.</li>
+ * </ol>
+ * После загрузки {@code file_id} сохраняется в Redis и становится общим для всех экземпляров.
+ * <p>
+ * Метрики: счетчик {@code recurix.charts.requests} с тегом {@code source=file_id|image_cache|rendered},
+ * таймер отрисовки {@code recurix.charts.render} и метрики кэша {@code charts}.
+ */
+@Service
+@Slf4j
+public class ChartService implements DisposableBean {
+
+    private final TelegramApiClient telegramApiClient;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final LocalMessageService messageService;
+    private final Duration fileIdTtl;
+
+    private final Scheduler renderScheduler;
+    private final AsyncCache<String, byte[]> images;
+    private final Timer renderTimer;
+    private final Counter fileIdRequests;
+    private final Counter imageCacheRequests;
+    private final Counter renderedRequests;
+
+    public ChartService(
+            TelegramApiClient telegramApiClient,
+            ReactiveStringRedisTemplate redisTemplate,
+            LocalMessageService messageService,
+            MeterRegistry meterRegistry,
+            @Value("${recurix.charts.render-threads:2}") int renderThreads,
+            @Value("${recurix.charts.render-queue:64}") int renderQueue,
+            @Value("${recurix.charts.cache-max-bytes:33554432}") long cacheMaxBytes,
+            @Value("${recurix.charts.file-id-ttl:P30D}") Duration fileIdTtl
+    ) {
+        this.telegramApiClient = telegramApiClient;
+        this.redisTemplate = redisTemplate;
+        this.messageService = messageService;
+        this.fileIdTtl = fileIdTtl;
+
+        this.renderScheduler = Schedulers.newBoundedElastic(renderThreads, renderQueue, "chart-render");
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .<String, byte[]>weigher((hash, png) -> png.length)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, images, "charts");
+
+        this.renderTimer = Timer.builder("recurix.charts.render")
+                .description("Time to render a spending chart")
+                .register(meterRegistry);
+        this.fileIdRequests = requestCounter(meterRegistry, "file_id");
+        this.imageCacheRequests = requestCounter(meterRegistry, "image_cache");
+        this.renderedRequests = requestCounter(meterRegistry, "rendered");
+    }
+
+    /**
+     * Отправляет в чат диаграмму расходов по категориям.
+     *
+     * @param chatId     ID чата.
+     * @param categories Расходы по категориям, от большей к меньшей.
+     * @param caption    Подпись к изображению в формате Markdown.
+     * @return {@code Mono<Void>}, завершающийся после отправки.
+     */
+    public Mono<Void> sendCategoryChart(Long chatId, List<CategorySpendingDto> categories, String caption) {
+        String hash = CategoryChartRenderer.contentHash(categories);
+
+        return redisTemplate.opsForValue().get(fileIdKey(hash))
+                .flatMap(fileId -> telegramApiClient.sendPhoto(chatId, fileId, caption)
+                        .doOnNext(sent -> fileIdRequests.increment())
+                        .onErrorResume(e -> {
+                            log.warn("Failed to send chart {} by file_id, uploading again: {}", hash, e.getMessage());
+                            return upload(chatId, hash, categories, caption);
+                        }))
+                .switchIfEmpty(Mono.defer(() -> upload(chatId, hash, categories, caption)))
+                .then();
+    }
+
+    @Override
+    public void destroy() {
+        renderScheduler.dispose();
+    }
+
+    private Mono<String> upload(Long chatId, String hash, List<CategorySpendingDto> categories, String caption) {
+        return image(hash, categories)
+                .flatMap(png -> telegramApiClient.uploadPhoto(chatId, png, caption))
+                .flatMap(fileId -> redisTemplate.opsForValue()
+                        .set(fileIdKey(hash), fileId, fileIdTtl)
+                        .thenReturn(fileId));
+    }
+
+    private Mono<byte[]> image(String hash, List<CategorySpendingDto> categories) {
+        return Mono.defer(() -> {
+            AtomicBoolean rendered = new AtomicBoolean();
+
+            return Mono.fromFuture(images.get(hash, (key, executor) -> {
+                rendered.set(true);
+                return render(categories).toFuture();
+            }), true)
+                    .doOnNext(png -> (rendered.get() ? renderedRequests : imageCacheRequests).increment());
+        });
+    }
+
+    private Mono<byte[]> render(List<CategorySpendingDto> categories) {
+        return Mono.fromCallable(() -> renderTimer.record(() -> CategoryChartRenderer.render(
+                categories,
+                messageService.getMessage("analytics.chart.no_category"),
+                messageService.getMessage("analytics.chart.other"))))
+                .subscribeOn(renderScheduler);
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("recurix.charts.requests")
+                .description("Chart requests by the source the image was served from")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private static String fileIdKey(String hash) {
+        return "chart_file_id:" + hash;
+    }
+}
@@ -1,17 +1,31 @@
 package com.halcyon.recurix.client;
 
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.ParseMode;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.PhotoSize;
 import reactor.core.publisher.Mono;
 
 @Service
 @Slf4j
 public class TelegramApiClient {
 
+    private static final ParameterizedTypeReference<ApiResponse<Message>> MESSAGE_RESPONSE =
+            new ParameterizedTypeReference<>() {};
+
     private final WebClient webClient;
 
     public TelegramApiClient(@Value("${telegram.bot.token}") String botToken) {
@@ -67,4 +81,55 @@ public class TelegramApiClient {
                 .doOnError(e -> log.error("Failed to send answer callback query [{}]: {}", callbackQueryId, e.getMessage()))
                 .onErrorComplete();
     }
+
+    /**
+     * Отправляет ранее загруженное изображение по его {@code file_id}.
+     *
+     * @param chatId  ID чата.
+     * @param fileId  {@code file_id} изображения на серверах Telegram.
+     * @param caption Подпись в формате Markdown.
+     * @return {@code Mono} с {@code file_id} отправленного изображения.
+     */
+    public Mono<String> sendPhoto(Long chatId, String fileId, String caption) {
+        return webClient.post()
+                .uri("/sendPhoto")
+                .bodyValue(Map.of(
+                        "chat_id", chatId,
+                        "photo", fileId,
+                        "caption", caption,
+                        "parse_mode", ParseMode.MARKDOWN))
+                .retrieve()
+                .bodyToMono(MESSAGE_RESPONSE)
+                .map(TelegramApiClient::largestPhotoId);
+    }
+
+    /**
+     * Загружает и отправляет PNG-изображение.
+     *
+     * @param chatId  ID чата.
+     * @param png     Содержимое изображения.
+     * @param caption Подпись в формате Markdown.
+     * @return {@code Mono} с {@code file_id}, по которому изображение можно отправлять повторно без загрузки.
+     */
+    public Mono<String> uploadPhoto(Long chatId, byte[] png, String caption) {
+        var body = new MultipartBodyBuilder();
+        body.part("chat_id", chatId.toString());
+        body.part("photo", new ByteArrayResource(png))
+                .filename("chart.png")
+                .contentType(MediaType.IMAGE_PNG);
+        body.part("caption", caption);
+        body.part("parse_mode", ParseMode.MARKDOWN);
+
+        return webClient.post()
+                .uri("/sendPhoto")
+                .body(BodyInserters.fromMultipartData(body.build()))
+                .retrieve()
+                .bodyToMono(MESSAGE_RESPONSE)
+                .map(TelegramApiClient::largestPhotoId);
+    }
+
+    private static String largestPhotoId(ApiResponse<Message> response) {
+        List<PhotoSize> photo = response.getResult().getPhoto();
+        return photo.get(photo.size() - 1).getFileId();
+    }
 }
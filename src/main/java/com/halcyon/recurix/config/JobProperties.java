@@ -0,0 +1,68 @@
+package com.halcyon.recurix.config;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки фоновых задач, разделенных на партиции.
+ */
+@Component
+@Getter
+public class JobProperties {
+
+    /**
+     * Количество партиций, на которые делится ежедневный запуск задачи.
+     */
+    @Value("${recurix.jobs.partitions:16}")
+    private int partitions;
+
+    /**
+     * Количество партиций, обрабатываемых одним экземпляром параллельно.
+     */
+    @Value("${recurix.jobs.workers:2}")
+    private int workers;
+
+    /**
+     * Через сколько обработанных записей сохраняется прогресс партиции.
+     */
+    @Value("${recurix.jobs.checkpoint-size:100}")
+    private int checkpointSize;
+
+    /**
+     * Максимальное количество подписок, продлеваемых одним UPDATE-запросом.
+     */
+    @Value("${recurix.jobs.renewal-chunk-size:1000}")
+    private int renewalChunkSize;
+
+    /**
+     * Время, после которого захваченная, но не обновлявшаяся партиция считается брошенной.
+     */
+    @Value("${recurix.jobs.lease:PT10M}")
+    private Duration lease;
+
+    /**
+     * Максимальная глубина, на которую догоняются пропущенные запуски при старте приложения.
+     */
+    @Value("${recurix.jobs.catch-up.look-back:P3D}")
+    private Duration catchUpLookBack;
+
+    /**
+     * Задержка перед догоняющими запусками, чтобы не нагружать только что стартовавший экземпляр.
+     */
+    @Value("${recurix.jobs.catch-up.initial-delay:PT1M}")
+    private Duration catchUpInitialDelay;
+
+    /**
+     * Пауза между последовательными догоняющими запусками.
+     */
+    @Value("${recurix.jobs.catch-up.delay:PT30S}")
+    private Duration catchUpDelay;
+
+    /**
+     * Идентификатор текущего экземпляра приложения.
+     */
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+}
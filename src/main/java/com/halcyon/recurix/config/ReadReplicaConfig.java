@@ -0,0 +1,99 @@
+package com.halcyon.recurix.config;
+
+import com.halcyon.recurix.repository.routing.ReadReplica;
+import com.halcyon.recurix.repository.routing.ReplicaRoutingConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Подключение реплики для чтения.
+ * <p>
+ * Включается, если задан {@code recurix.r2dbc.replica.url}. Тогда фабрики соединений
+ * объявляются явно вместо автоматической настройки: пул основной БД по {@code spring.r2dbc.*},
+ * пул реплики по {@code recurix.r2dbc.replica.*} и основной ({@link Primary}) бин
+ * {@link ReplicaRoutingConnectionFactory} поверх них. Репозитории, {@code DatabaseClient}
+ * и транзакции работают с маршрутизирующим бином, а оба пула остаются отдельными бинами
+ * {@link ConnectionPool}, поэтому их метрики публикуются под именами {@code primary}
+ * и {@code replica}. Пулы закрываются вместе со своими бинами.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recurix.r2dbc.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool primaryConnectionFactory(R2dbcProperties properties) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("primary")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize());
+
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).to(builder::validationQuery);
+
+        return new ConnectionPool(builder.build());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool replicaConnectionFactory(
+            @Value("${recurix.r2dbc.replica.url}") String url,
+            @Value("${recurix.r2dbc.replica.username:${spring.r2dbc.username:}}") String username,
+            @Value("${recurix.r2dbc.replica.password:${spring.r2dbc.password:}}") String password,
+            @Value("${recurix.r2dbc.replica.pool.initial-size:10}") int initialSize,
+            @Value("${recurix.r2dbc.replica.pool.max-size:10}") int maxSize,
+            @Value("${recurix.r2dbc.replica.pool.max-idle-time:PT30M}") Duration maxIdleTime,
+            @Value("${recurix.r2dbc.replica.pool.max-acquire-time:PT5S}") Duration maxAcquireTime
+    ) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(url)
+                .username(username)
+                .password(password)
+                .build();
+
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("replica")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+    }
+
+    @Bean
+    public ReadReplica readReplica(
+            @Qualifier("replicaConnectionFactory") ConnectionFactory replicaConnectionFactory,
+            @Value("${recurix.r2dbc.replica.max-lag:PT30S}") Duration maxLag,
+            MeterRegistry meterRegistry
+    ) {
+        return new ReadReplica(replicaConnectionFactory, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public ConnectionFactory connectionFactory(
+            @Qualifier("primaryConnectionFactory") ConnectionFactory primaryConnectionFactory,
+            ReadReplica readReplica
+    ) {
+        return new ReplicaRoutingConnectionFactory(primaryConnectionFactory, readReplica);
+    }
+}
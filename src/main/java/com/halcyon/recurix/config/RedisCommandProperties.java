@@ -0,0 +1,42 @@
+package com.halcyon.recurix.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ограничения времени команд Redis, выполняемых приложением.
+ * <p>
+ * Общий таймаут соединения Lettuce задается {@code spring.data.redis.timeout}; эти
+ * таймауты короче и применяются к отдельным операциям, чтобы нажатие кнопки не ждало
+ * зависший Redis дольше, чем имеет смысл для конкретной операции.
+ */
+@Component
+@Getter
+public class RedisCommandProperties {
+
+    /**
+     * Таймаут чтения (например, {@code HMGET}).
+     */
+    @Value("${recurix.redis.timeouts.read:PT500MS}")
+    private Duration readTimeout;
+
+    /**
+     * Таймаут записи и удаления ({@code HSET}, {@code HDEL}, {@code DEL}).
+     */
+    @Value("${recurix.redis.timeouts.write:PT1S}")
+    private Duration writeTimeout;
+
+    /**
+     * Таймаут выполнения Lua-скриптов ({@code EVALSHA}).
+     */
+    @Value("${recurix.redis.timeouts.script:PT1S}")
+    private Duration scriptTimeout;
+
+    /**
+     * Порог, начиная с которого команда попадает в журнал медленных команд.
+     */
+    @Value("${recurix.redis.slow-command-threshold:PT50MS}")
+    private Duration slowCommandThreshold;
+}
@@ -1,32 +1,107 @@
 package com.halcyon.recurix.config;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.halcyon.recurix.handler.ConversationState;
+import com.halcyon.recurix.service.context.SubscriptionContext;
+import com.halcyon.recurix.service.context.SubscriptionContextCodec;
+import com.halcyon.recurix.service.context.SubscriptionListContext;
+import com.halcyon.recurix.service.context.SubscriptionListContextCodec;
+import java.nio.charset.StandardCharsets;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+/**
+ * Redis для состояния диалога.
+ * <p>
+ * Все данные диалога пользователя хранятся полями одного хэша, поэтому шаблон работает
+ * с сырыми байтами, а каждое поле кодируется своим типизированным сериализатором —
+ * чтение поля — это ровно одно декодирование сразу в нужный тип, без метаданных классов в значении.
+ * Контексты пишутся компактным двоичным форматом; JSON используется только для чтения
+ * значений, записанных до его появления.
+ */
 @Configuration
 public class RedisConfig {
 
     @Bean
-    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(ReactiveRedisConnectionFactory factory) {
-        var keySerializer = new StringRedisSerializer();
+    public ReactiveRedisTemplate<String, byte[]> conversationRedisTemplate(ReactiveRedisConnectionFactory factory) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .hashKey(RedisSerializer.string())
+                .hashValue(RedisSerializer.byteArray())
+                .build();
 
+        return new ReactiveRedisTemplate<>(factory, context);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "recurix.conversations.store", havingValue = "redis", matchIfMissing = true)
+    public ReactiveRedisMessageListenerContainer redisMessageListenerContainer(ReactiveRedisConnectionFactory factory) {
+        return new ReactiveRedisMessageListenerContainer(factory);
+    }
+
+    @Bean
+    public RedisSerializer<ConversationState> conversationStateSerializer() {
+        return new ConversationStateRedisSerializer();
+    }
+
+    @Bean
+    public RedisSerializer<SubscriptionContext> subscriptionContextSerializer() {
+        return new SubscriptionContextCodec(
+                new Jackson2JsonRedisSerializer<>(contextObjectMapper(), SubscriptionContext.class));
+    }
+
+    @Bean
+    public RedisSerializer<SubscriptionListContext> listContextSerializer() {
+        return new SubscriptionListContextCodec(
+                new Jackson2JsonRedisSerializer<>(contextObjectMapper(), SubscriptionListContext.class));
+    }
+
+    /**
+     * Формат значений, записанных до перехода на двоичные кодеки.
+     * Даты пишутся строками ISO, неизвестные поля (например, {@code @class} из прежнего
+     * формата) пропускаются.
+     */
+    private static ObjectMapper contextObjectMapper() {
         var objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return objectMapper;
+    }
 
-        var valueSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    /**
+     * Хранит состояние диалога именем константы, например {@code AWAITING_NEW_NAME}.
+     * Читает и прежний формат — JSON-строку в кавычках.
+     */
+    static final class ConversationStateRedisSerializer implements RedisSerializer<ConversationState> {
 
-        RedisSerializationContext.RedisSerializationContextBuilder<String, Object> builder = RedisSerializationContext
-                .newSerializationContext(keySerializer);
+        @Override
+        public byte[] serialize(ConversationState state) {
+            return state == null ? null : state.name().getBytes(StandardCharsets.US_ASCII);
+        }
 
-        RedisSerializationContext<String, Object> context = builder.value(valueSerializer).build();
+        @Override
+        public ConversationState deserialize(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
 
-        return new ReactiveRedisTemplate<>(factory, context);
+            String name = new String(bytes, StandardCharsets.US_ASCII);
+            if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                name = name.substring(1, name.length() - 1);
+            }
+            return ConversationState.valueOf(name);
+        }
     }
 }
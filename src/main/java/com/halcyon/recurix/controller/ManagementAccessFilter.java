@@ -0,0 +1,69 @@
+package com.halcyon.recurix.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Закрывает эндпоинты actuator, кроме {@code health}, токеном {@code recurix.management.token}.
+ * <p>
+ * Запрос должен передать токен в заголовке {@code Authorization: Bearer <токен>}. Если токен
+ * не задан, закрытые эндпоинты недоступны совсем. {@code /actuator/health} остается открытым
+ * для проверок живости. Фильтр — бин основного контекста, поэтому действует и тогда, когда
+ * actuator вынесен на отдельный порт ({@code management.server.port}): дочерний контекст
+ * управления собирает фильтры с учетом родительского.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ManagementAccessFilter implements WebFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final String basePath;
+    private final byte[] token;
+
+    public ManagementAccessFilter(
+            @Value("${management.endpoints.web.base-path:/actuator}") String basePath,
+            @Value("${recurix.management.token:}") String token
+    ) {
+        this.basePath = basePath;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!isProtected(path) || isAuthorized(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION))) {
+            return chain.filter(exchange);
+        }
+
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        return exchange.getResponse().setComplete();
+    }
+
+    private boolean isProtected(String path) {
+        if (!path.equals(basePath) && !path.startsWith(basePath + "/")) {
+            return false;
+        }
+        String endpoint = path.substring(basePath.length());
+        return !endpoint.equals("/health") && !endpoint.startsWith("/health/");
+    }
+
+    private boolean isAuthorized(String authorization) {
+        if (token.length == 0 || authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        byte[] presented = authorization.substring(BEARER_PREFIX.length()).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(presented, token);
+    }
+}
@@ -0,0 +1,49 @@
+package com.halcyon.recurix.controller;
+
+import com.halcyon.recurix.dto.SpendingRollupReportDto;
+import com.halcyon.recurix.job.PartitionedJobRunner;
+import com.halcyon.recurix.service.SpendingRollupService;
+import java.time.YearMonth;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Административный эндпоинт actuator {@code /actuator/spendingrollup}.
+ * <p>
+ * Требует токен {@code recurix.management.token} (см. {@link ManagementAccessFilter}).
+ * {@code GET} возвращает отчет за период
+ * (по умолчанию — последние 12 месяцев), {@code POST} запускает обновление представления.
+ */
+@Component
+@Endpoint(id = "spendingrollup")
+@RequiredArgsConstructor
+public class SpendingRollupEndpoint {
+
+    private static final int DEFAULT_MONTHS = 12;
+
+    private final SpendingRollupService rollupService;
+
+    /**
+     * @param from Первый месяц в формате {@code yyyy-MM}.
+     * @param to   Последний месяц в формате {@code yyyy-MM}.
+     */
+    @ReadOperation
+    public Mono<SpendingRollupReportDto> report(@Nullable String from, @Nullable String to) {
+        YearMonth toMonth = to == null ? YearMonth.now(PartitionedJobRunner.ZONE) : YearMonth.parse(to);
+        YearMonth fromMonth = from == null ? toMonth.minusMonths(DEFAULT_MONTHS - 1) : YearMonth.parse(from);
+
+        return rollupService.getReport(fromMonth, toMonth);
+    }
+
+    @WriteOperation
+    public Mono<Map<String, Boolean>> refresh() {
+        return rollupService.refresh()
+                .map(refreshed -> Map.of("refreshed", refreshed));
+    }
+}
@@ -1,15 +1,25 @@
 package com.halcyon.recurix.dto;
 
 import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.support.Money;
 import lombok.Builder;
 
-import java.math.BigDecimal;
 import java.util.List;
 
+/**
+ * Месячная сводка расходов пользователя.
+ *
+ * @param totalSubscriptions Количество платежей месяца: из агрегатов, если месяц ими покрыт, иначе по подпискам.
+ * @param monthlyTotal       Сумма платежей месяца; источник тот же, что у количества.
+ * @param spendingByCategory Суммы по категориям по убыванию; источник тот же, что у количества.
+ * @param mostExpensive      Самая дорогая подписка с ближайшей датой платежа в месяце, всегда по подпискам;
+ *                           может отсутствовать, если платежи месяца учтены до продления.
+ * @param nextPayment        Подписка с ближайшим платежом не раньше начала месяца, всегда по подпискам.
+ */
 @Builder
 public record AnalyticsDto(
         Integer totalSubscriptions,
-        BigDecimal monthlyTotal,
+        Money monthlyTotal,
         List<CategorySpendingDto> spendingByCategory,
         Subscription mostExpensive,
         Subscription nextPayment
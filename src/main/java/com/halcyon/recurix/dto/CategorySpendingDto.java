@@ -1,9 +1,9 @@
 package com.halcyon.recurix.dto;
 
-import java.math.BigDecimal;
+import com.halcyon.recurix.support.Money;
 
 public record CategorySpendingDto(
         String category,
-        BigDecimal total
+        Money total
 ) {
 }
@@ -0,0 +1,15 @@
+package com.halcyon.recurix.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Минимальный набор полей подписки, нужный для планирования напоминаний и продлений.
+ */
+public record DueSubscriptionDto(
+        long id,
+        LocalDate paymentDate,
+        Integer renewalMonths,
+        boolean remindersEnabled,
+        int reminderDaysBefore
+) {
+}
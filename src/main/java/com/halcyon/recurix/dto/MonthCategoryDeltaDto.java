@@ -0,0 +1,22 @@
+package com.halcyon.recurix.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Изменение месячного агрегата по категории.
+ *
+ * @param userId   ID пользователя.
+ * @param month    Первый день месяца.
+ * @param category Категория; пустая строка для подписок без категории.
+ * @param total    Изменение суммы платежей.
+ * @param payments Изменение количества платежей.
+ */
+public record MonthCategoryDeltaDto(
+        Long userId,
+        LocalDate month,
+        String category,
+        BigDecimal total,
+        int payments
+) {
+}
@@ -0,0 +1,10 @@
+package com.halcyon.recurix.dto;
+
+import com.halcyon.recurix.support.Money;
+import java.time.YearMonth;
+
+public record MonthSpendingDto(
+        YearMonth month,
+        Money total
+) {
+}
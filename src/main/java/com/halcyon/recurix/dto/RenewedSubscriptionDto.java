@@ -0,0 +1,12 @@
+package com.halcyon.recurix.dto;
+
+/**
+ * Подписка, опорная дата которой сдвинута задачей продления.
+ *
+ * @param id     ID подписки.
+ * @param userId ID владельца, версию данных которого нужно увеличить.
+ */
+public record RenewedSubscriptionDto(
+        Long id,
+        Long userId
+) {}
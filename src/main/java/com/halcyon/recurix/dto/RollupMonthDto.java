@@ -0,0 +1,13 @@
+package com.halcyon.recurix.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+public record RollupMonthDto(
+        YearMonth month,
+        long users,
+        long payments,
+        BigDecimal total,
+        BigDecimal averageSubscriptionsPerUser
+) {
+}
@@ -0,0 +1,14 @@
+package com.halcyon.recurix.dto;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+public record SpendingRollupReportDto(
+        YearMonth from,
+        YearMonth to,
+        Instant refreshedAt,
+        List<RollupMonthDto> months,
+        List<CategorySpendingDto> categories
+) {
+}
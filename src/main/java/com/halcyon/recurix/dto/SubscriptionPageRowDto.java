@@ -0,0 +1,20 @@
+package com.halcyon.recurix.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Строка страницы списка подписок вместе с общим количеством подписок пользователя,
+ * чтобы страница и счетчик страниц читались одним запросом.
+ */
+public record SubscriptionPageRowDto(
+        Long id,
+        Long userId,
+        String name,
+        BigDecimal price,
+        LocalDate paymentDate,
+        Integer renewalMonths,
+        String category,
+        Long totalCount
+) {
+}
@@ -0,0 +1,17 @@
+package com.halcyon.recurix.dto;
+
+import com.halcyon.recurix.support.Money;
+import lombok.Builder;
+
+import java.time.Year;
+import java.util.List;
+
+@Builder
+public record YearAnalyticsDto(
+        Year year,
+        Integer totalPayments,
+        Money yearTotal,
+        List<MonthSpendingDto> spendingByMonth,
+        List<CategorySpendingDto> spendingByCategory
+) {
+}
@@ -0,0 +1,10 @@
+package com.halcyon.recurix.event;
+
+/**
+ * Публикуется после удаления подписки.
+ *
+ * @param subscriptionId ID удаленной подписки.
+ * @param userId         ID владельца подписки.
+ */
+public record SubscriptionDeletedEvent(long subscriptionId, long userId) {
+}
@@ -0,0 +1,11 @@
+package com.halcyon.recurix.event;
+
+import com.halcyon.recurix.model.Subscription;
+
+/**
+ * Публикуется после создания или изменения подписки.
+ *
+ * @param subscription Сохраненная подписка.
+ */
+public record SubscriptionSavedEvent(Subscription subscription) {
+}
@@ -1,5 +1,6 @@
 package com.halcyon.recurix.handler;
 
+import com.halcyon.recurix.service.context.Conversation;
 import java.io.Serializable;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -9,5 +10,12 @@ public interface ConversationStepHandler {
 
     boolean supports(ConversationState state);
 
-    Mono<BotApiMethod<? extends Serializable>> execute(Update update);
+    /**
+     * Обрабатывает ввод пользователя на текущем шаге диалога.
+     *
+     * @param update       Входящее обновление с текстом сообщения.
+     * @param conversation Данные диалога, прочитанные вместе с его состоянием.
+     * @return {@code Mono} с ответным сообщением.
+     */
+    Mono<BotApiMethod<? extends Serializable>> execute(Update update, Conversation conversation);
 }
@@ -5,7 +5,7 @@ import com.halcyon.recurix.handler.ConversationStepHandler;
 import com.halcyon.recurix.service.ConversationStateService;
 import com.halcyon.recurix.service.KeyboardService;
 import com.halcyon.recurix.service.LocalMessageService;
-import com.halcyon.recurix.service.context.SubscriptionContext;
+import com.halcyon.recurix.service.context.Conversation;
 import java.io.Serializable;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -28,21 +28,22 @@ public class NameStepHandler implements ConversationStepHandler {
     }
 
     @Override
-    public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
+    public Mono<BotApiMethod<? extends Serializable>> execute(Update update, Conversation conversation) {
         Long userId = update.getMessage().getFrom().getId();
         String text = update.getMessage().getText();
 
-        return stateService.getContext(userId, SubscriptionContext.class)
+        return Mono.justOrEmpty(conversation.context())
                 .flatMap(context -> {
                     context.getSubscription().setName(text);
 
-                    return stateService.setContext(userId, context)
-                            .then(stateService.setState(userId, ConversationState.AWAITING_SUBSCRIPTION_PRICE));
-                }).then(
-                        Mono.fromCallable(() -> SendMessage.builder()
-                                .chatId(userId)
-                                .text(messageService.getMessage("dialog.add.prompt.price"))
-                                .replyMarkup(keyboardService.getBackToMenuKeyboard())
-                                .build()));
+                    return stateService.transition(
+                            userId, conversation.state(), context, ConversationState.AWAITING_SUBSCRIPTION_PRICE);
+                })
+                .filter(Boolean::booleanValue)
+                .flatMap(applied -> Mono.fromCallable(() -> SendMessage.builder()
+                        .chatId(userId)
+                        .text(messageService.getMessage("dialog.add.prompt.price"))
+                        .replyMarkup(keyboardService.getBackToMenuKeyboard())
+                        .build()));
     }
 }
@@ -8,7 +8,7 @@ import com.halcyon.recurix.message.SubscriptionMessageFactory;
 import com.halcyon.recurix.service.ConversationStateService;
 import com.halcyon.recurix.service.KeyboardService;
 import com.halcyon.recurix.service.LocalMessageService;
-import com.halcyon.recurix.service.context.SubscriptionContext;
+import com.halcyon.recurix.service.context.Conversation;
 import com.halcyon.recurix.support.InputParser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -50,13 +50,14 @@ public class PriceStepHandler implements ConversationStepHandler {
      * 5. В случае ошибки парсинга, отправляет уведомление об ошибке.
      */
     @Override
-    public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
+    public Mono<BotApiMethod<? extends Serializable>> execute(Update update, Conversation conversation) {
         Long userId = update.getMessage().getFrom().getId();
         String inputText = update.getMessage().getText();
 
         Mono<SendMessage> logicMono = Mono.fromCallable(() -> inputParser.parsePrice(inputText))
-                .flatMap(price -> updateContextAndState(userId, price)
-                        .then(createNextStepMessage(userId)))
+                .flatMap(price -> updateContextAndState(userId, conversation, price))
+                .filter(Boolean::booleanValue)
+                .flatMap(applied -> createNextStepMessage(userId))
                 .onErrorResume(InvalidInputException.class, e -> subscriptionMessageFactory.createErrorMessage(userId, e));
 
         return logicMono.map(sendMessage -> sendMessage);
@@ -65,18 +66,18 @@ public class PriceStepHandler implements ConversationStepHandler {
     /**
      * Обновляет контекст новой ценой и переводит диалог в следующее состояние.
      * 
-     * @param userId ID пользователя.
-     * @param price  Новая цена.
-     * @return Mono<Void>, который завершается после сохранения контекста и состояния.
+     * @param userId       ID пользователя.
+     * @param conversation Данные диалога.
+     * @param price        Новая цена.
+     * @return Mono с {@code true}, если переход выполнен; пустой, если контекст истек.
      */
-    private Mono<Void> updateContextAndState(Long userId, BigDecimal price) {
-        return stateService.getContext(userId, SubscriptionContext.class)
+    private Mono<Boolean> updateContextAndState(Long userId, Conversation conversation, BigDecimal price) {
+        return Mono.justOrEmpty(conversation.context())
                 .flatMap(context -> {
                     context.getSubscription().setPrice(price);
 
-                    return Mono.when(
-                            stateService.setContext(userId, context),
-                            stateService.setState(userId, ConversationState.AWAITING_SUBSCRIPTION_DATE));
+                    return stateService.transition(
+                            userId, conversation.state(), context, ConversationState.AWAITING_SUBSCRIPTION_DATE);
                 });
     }
 
@@ -2,11 +2,13 @@ package com.halcyon.recurix.handler.subscription.edit;
 
 import com.halcyon.recurix.client.TelegramApiClient;
 import com.halcyon.recurix.exception.InvalidInputException;
+import com.halcyon.recurix.handler.ConversationState;
 import com.halcyon.recurix.handler.ConversationStepHandler;
 import com.halcyon.recurix.model.Subscription;
 import com.halcyon.recurix.service.ConversationStateService;
 import com.halcyon.recurix.service.KeyboardService;
 import com.halcyon.recurix.service.LocalMessageService;
+import com.halcyon.recurix.service.context.Conversation;
 import com.halcyon.recurix.service.context.SubscriptionContext;
 import com.halcyon.recurix.support.PeriodFormatter;
 import java.io.Serializable;
@@ -67,7 +69,7 @@ public abstract class BaseEditStepHandler<T> implements ConversationStepHandler
     protected abstract void updateSubscription(Subscription subscription, T value);
 
     @Override
-    public Mono<BotApiMethod<? extends Serializable>> execute(Update update) {
+    public Mono<BotApiMethod<? extends Serializable>> execute(Update update, Conversation conversation) {
         Long userId = update.getMessage().getFrom().getId();
         Integer messageId = update.getMessage().getMessageId();
         String text = update.getMessage().getText();
@@ -75,14 +77,11 @@ public abstract class BaseEditStepHandler<T> implements ConversationStepHandler
         try {
             T parsedValue = parse(text);
 
-            return stateService.getContext(userId, SubscriptionContext.class)
-                    .flatMap(context -> {
-                        Mono<Void> sideEffects = performSideEffects(context, userId, messageId,
-                                subscription -> updateSubscription(subscription, parsedValue));
-
-                        return sideEffects.thenReturn(context);
-                    })
-                    .map(context -> createEditMessage(userId, context));
+            return Mono.justOrEmpty(conversation.context())
+                    .flatMap(context -> performSideEffects(context, conversation.state(), userId, messageId,
+                            subscription -> updateSubscription(subscription, parsedValue))
+                            .filter(Boolean::booleanValue)
+                            .map(applied -> createEditMessage(userId, context)));
         } catch (InvalidInputException e) {
             return Mono.just(new SendMessage(
                     userId.toString(),
@@ -94,19 +93,26 @@ public abstract class BaseEditStepHandler<T> implements ConversationStepHandler
         }
     }
 
-    private Mono<Void> performSideEffects(
-                                          SubscriptionContext context,
-                                          Long userId,
-                                          Integer messageId,
-                                          Consumer<Subscription> subscriptionUpdater) {
+    /**
+     * Удаляет сообщение пользователя и атомарно сохраняет измененный контекст,
+     * выводя диалог из режима ввода.
+     *
+     * @return {@code Mono} с {@code true}, если диалог все еще был на шаге {@code state}
+     *         и изменение сохранено.
+     */
+    private Mono<Boolean> performSideEffects(
+                                             SubscriptionContext context,
+                                             ConversationState state,
+                                             Long userId,
+                                             Integer messageId,
+                                             Consumer<Subscription> subscriptionUpdater) {
         Mono<Void> deleteUserMessageMono = telegramApiClient.deleteMessage(userId, messageId);
 
         subscriptionUpdater.accept(context.getSubscription());
 
-        Mono<Void> saveContextMono = stateService.setContext(userId, context);
-        Mono<Void> clearStateMono = stateService.clearState(userId);
+        Mono<Boolean> transitionMono = stateService.transition(userId, state, context, null);
 
-        return Mono.when(deleteUserMessageMono, saveContextMono, clearStateMono);
+        return Mono.zip(transitionMono, deleteUserMessageMono.thenReturn(true), (applied, deleted) -> applied);
     }
 
     private EditMessageText createEditMessage(Long userId, SubscriptionContext context) {
@@ -0,0 +1,186 @@
+package com.halcyon.recurix.job;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Очередь сроков подписок в памяти: двоичная min-куча по дню срабатывания.
+ * <p>
+ * Каждая запись упакована в один {@code long}: {@code epochDay << 41 | subscriptionId << 1 | action},
+ * поэтому куча — это один массив примитивов без объектов на запись (8 байт на запись
+ * плюс запас емкости), а порядок чисел совпадает с порядком сроков.
+ * <p>
+ * Потокобезопасен: все операции синхронизированы.
+ */
+public final class DueDateIndex {
+
+    /**
+     * Действие, которое нужно выполнить в срок.
+     */
+    public enum Action {
+        REMINDER,
+        RENEWAL
+    }
+
+    /**
+     * Запись, у которой наступил срок.
+     */
+    public record DueEntry(long subscriptionId, long epochDay, Action action) {
+    }
+
+    private static final int ID_BITS = 40;
+    private static final long MAX_ID = (1L << ID_BITS) - 1;
+    private static final long MAX_EPOCH_DAY = (1L << (Long.SIZE - 1 - ID_BITS - 1)) - 1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] heap = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Добавляет запись в очередь.
+     *
+     * @param subscriptionId ID подписки.
+     * @param epochDay       День срабатывания ({@link java.time.LocalDate#toEpochDay()}).
+     * @param action         Действие.
+     */
+    public synchronized void add(long subscriptionId, long epochDay, Action action) {
+        if (subscriptionId < 0 || subscriptionId > MAX_ID) {
+            throw new IllegalArgumentException("Subscription id out of range: " + subscriptionId);
+        }
+        if (epochDay < 0 || epochDay > MAX_EPOCH_DAY) {
+            throw new IllegalArgumentException("Epoch day out of range: " + epochDay);
+        }
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        heap[size] = epochDay << (ID_BITS + 1) | subscriptionId << 1 | action.ordinal();
+        siftUp(size++);
+    }
+
+    /**
+     * Удаляет все записи подписки.
+     * <p>
+     * Работает за линейное время, но вызывается только при изменении или удалении
+     * подписки пользователем.
+     *
+     * @param subscriptionId ID подписки.
+     * @return Количество удаленных записей.
+     */
+    public synchronized int remove(long subscriptionId) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (idOf(heap[i]) != subscriptionId) {
+                heap[kept++] = heap[i];
+            }
+        }
+
+        int removed = size - kept;
+        if (removed > 0) {
+            size = kept;
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+            shrinkIfSparse();
+        }
+        return removed;
+    }
+
+    /**
+     * Извлекает все записи со сроком не позже указанного дня.
+     * <p>
+     * Одинаковые записи (если подписка была запланирована дважды) возвращаются один раз.
+     *
+     * @param epochDay Последний наступивший день.
+     * @return Записи в порядке сроков.
+     */
+    public synchronized List<DueEntry> pollDue(long epochDay) {
+        List<DueEntry> due = new ArrayList<>();
+        long previous = -1;
+
+        while (size > 0 && dayOf(heap[0]) <= epochDay) {
+            long key = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+
+            if (key != previous) {
+                due.add(new DueEntry(idOf(key), dayOf(key), Action.values()[(int) (key & 1)]));
+                previous = key;
+            }
+        }
+
+        shrinkIfSparse();
+        return due;
+    }
+
+    /**
+     * @return Количество записей в очереди.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Память, занятая массивом кучи, в байтах.
+     */
+    public synchronized long memoryBytes() {
+        return (long) heap.length * Long.BYTES;
+    }
+
+    /**
+     * Удаляет все записи.
+     */
+    public synchronized void clear() {
+        heap = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private static long idOf(long key) {
+        return (key >>> 1) & MAX_ID;
+    }
+
+    private static long dayOf(long key) {
+        return key >>> (ID_BITS + 1);
+    }
+
+    private void siftUp(int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private void siftDown(int index) {
+        if (size == 0) {
+            return;
+        }
+
+        long key = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+
+    private void shrinkIfSparse() {
+        if (heap.length > INITIAL_CAPACITY && size < heap.length / 4) {
+            heap = Arrays.copyOf(heap, Math.max(INITIAL_CAPACITY, heap.length / 2));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.halcyon.recurix.job;
+
+import com.halcyon.recurix.cache.UserDataVersions;
+import com.halcyon.recurix.dto.DueSubscriptionDto;
+import com.halcyon.recurix.event.SubscriptionDeletedEvent;
+import com.halcyon.recurix.event.SubscriptionSavedEvent;
+import com.halcyon.recurix.job.DueDateIndex.Action;
+import com.halcyon.recurix.job.DueDateIndex.DueEntry;
+import com.halcyon.recurix.repository.DueSubscriptionRepository;
+import com.halcyon.recurix.repository.SubscriptionRepository;
+import com.halcyon.recurix.service.ReminderService;
+import com.halcyon.recurix.support.PaymentDates;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Планировщик сроков подписок в памяти.
+ * <p>
+ * Очередь {@link DueDateIndex} хранит только сроки в окне {@code recurix.jobs.due-index.window}
+ * от текущего дня: при старте загружаются подписки со сроками в окне, а раз в сутки окно
+ * сдвигается и догружаются подписки со сроками в новом дне окна. Более дальние сроки
+ * в очередь не попадают — их подхватит сдвиг окна. Между загрузками очередь поддерживается
+ * в актуальном состоянии по событиям сохранения и удаления подписок. Раз в
+ * {@code recurix.jobs.due-index.tick} извлекает наступившие сроки и сразу отправляет
+ * напоминания и продлевает подписки, не дожидаясь следующего ежедневного запуска.
+ * <p>
+ * Ежедневные задачи остаются страховкой: они догоняют то, что планировщик не увидел
+ * (например, изменение настроек напоминаний), а журнал {@code sent_reminders}
+ * не дает отправить одно напоминание дважды, в том числе с разных экземпляров.
+ */
+@Component
+@ConditionalOnProperty(name = "recurix.jobs.due-index.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class DueDateScheduler {
+
+    /**
+     * Время, начиная с которого в день срока отправляются напоминания (как у ежедневной задачи).
+     */
+    private static final LocalTime FIRE_TIME = LocalTime.of(9, 0);
+    private static final int FIRE_CONCURRENCY = 8;
+
+    private final DueDateIndex index = new DueDateIndex();
+    private final DueSubscriptionRepository dueSubscriptionRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final ReminderService reminderService;
+    private final UserDataVersions dataVersions;
+    private final boolean renewalEnabled;
+    private final long windowDays;
+
+    private volatile boolean loaded;
+
+    /**
+     * Последний день (день эпохи), сроки до которого включительно уже есть в очереди.
+     */
+    private volatile long horizonDay;
+
+    public DueDateScheduler(
+            DueSubscriptionRepository dueSubscriptionRepository,
+            SubscriptionRepository subscriptionRepository,
+            ReminderService reminderService,
+            UserDataVersions dataVersions,
+            MeterRegistry meterRegistry,
+            @Value("${recurix.jobs.renewal-enabled:true}") boolean renewalEnabled,
+            @Value("${recurix.jobs.due-index.window:P7D}") Duration window
+    ) {
+        this.dueSubscriptionRepository = dueSubscriptionRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.reminderService = reminderService;
+        this.dataVersions = dataVersions;
+        this.renewalEnabled = renewalEnabled;
+        this.windowDays = window.toDays();
+
+        Gauge.builder("recurix.due_index.entries", index, DueDateIndex::size)
+                .description("Number of scheduled due-date entries")
+                .register(meterRegistry);
+        Gauge.builder("recurix.due_index.memory", index, DueDateIndex::memoryBytes)
+                .description("Memory held by the due-date heap")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate today = today();
+        LocalDate horizon = today.plusDays(windowDays);
+        horizonDay = horizon.toEpochDay();
+
+        dueSubscriptionRepository.streamDueWithin(today, horizon, renewalEnabled)
+                .doOnNext(subscription -> schedule(subscription, today))
+                .count()
+                .subscribe(count -> {
+                    loaded = true;
+                    log.info("SCHEDULER: Due-date index loaded {} subscriptions due until {} into {} entries, {} bytes ({} bytes per entry).",
+                            count, horizon, index.size(), index.memoryBytes(), bytesPerEntry());
+                }, e -> log.error("SCHEDULER: Failed to load due-date index.", e));
+    }
+
+    /**
+     * Сдвигает окно очереди на текущий день и догружает подписки со сроками в новых днях окна.
+     * <p>
+     * Граница сдвигается до загрузки, поэтому события сохранения во время загрузки уже
+     * планируют сроки в новом окне. Подписки, сроки которых уже есть в очереди, добавляются
+     * без удаления старых записей: совпадающие записи {@link DueDateIndex#pollDue} отдает один раз,
+     * а линейное удаление для каждой догружаемой подписки обошлось бы дороже.
+     */
+    @Scheduled(cron = "0 1 0 * * *", zone = "Europe/Moscow")
+    public void extendWindow() {
+        if (!loaded) {
+            return;
+        }
+
+        LocalDate today = today();
+        LocalDate from = LocalDate.ofEpochDay(horizonDay + 1);
+        LocalDate horizon = today.plusDays(windowDays);
+        if (horizon.isBefore(from)) {
+            return;
+        }
+        horizonDay = horizon.toEpochDay();
+
+        dueSubscriptionRepository.streamDueWithin(from, horizon, renewalEnabled)
+                .doOnNext(subscription -> schedule(subscription, today))
+                .count()
+                .subscribe(count -> log.info("SCHEDULER: Due-date window extended to {}, {} subscriptions scheduled, {} entries.",
+                                horizon, count, index.size()),
+                        e -> log.error("SCHEDULER: Failed to extend due-date window to {}.", horizon, e));
+    }
+
+    @EventListener
+    public void onSaved(SubscriptionSavedEvent event) {
+        long subscriptionId = event.subscription().getId();
+
+        dueSubscriptionRepository.findById(subscriptionId)
+                .subscribe(subscription -> reschedule(subscription, today()),
+                        e -> log.error("Failed to reschedule subscription {}", subscriptionId, e));
+    }
+
+    @EventListener
+    public void onDeleted(SubscriptionDeletedEvent event) {
+        index.remove(event.subscriptionId());
+    }
+
+    /**
+     * Извлекает наступившие сроки и выполняет действия по ним.
+     */
+    @Scheduled(
+            fixedDelayString = "${recurix.jobs.due-index.tick:PT1M}",
+            initialDelayString = "${recurix.jobs.due-index.tick:PT1M}")
+    public void fireDue() {
+        if (!loaded) {
+            return;
+        }
+
+        ZonedDateTime now = ZonedDateTime.now(PartitionedJobRunner.ZONE);
+        LocalDate lastDueDay = now.toLocalTime().isBefore(FIRE_TIME)
+                ? now.toLocalDate().minusDays(1)
+                : now.toLocalDate();
+
+        Flux.fromIterable(index.pollDue(lastDueDay.toEpochDay()))
+                .flatMap(entry -> fire(entry)
+                        .onErrorResume(e -> {
+                            log.error("SCHEDULER: Failed to fire {} for subscription {}",
+                                    entry.action(), entry.subscriptionId(), e);
+                            return Mono.empty();
+                        }), FIRE_CONCURRENCY)
+                .subscribe();
+    }
+
+    private Mono<Void> fire(DueEntry entry) {
+        LocalDate day = LocalDate.ofEpochDay(entry.epochDay());
+
+        Mono<?> action = switch (entry.action()) {
+            case REMINDER -> reminderService.sendReminder(entry.subscriptionId(), day);
+            case RENEWAL -> subscriptionRepository.renewById(entry.subscriptionId(), day)
+                    .flatMap(dataVersions::bump);
+        };
+
+        return action
+                .then(dueSubscriptionRepository.findById(entry.subscriptionId()))
+                .doOnNext(subscription -> reschedule(subscription, day.plusDays(1)))
+                .then();
+    }
+
+    private void reschedule(DueSubscriptionDto subscription, LocalDate fromDay) {
+        index.remove(subscription.id());
+        schedule(subscription, fromDay);
+    }
+
+    /**
+     * Добавляет ближайшие сроки подписки, наступающие не раньше {@code fromDay}
+     * и не позже границы окна. Разовой подписке с прошедшей датой напоминать не о чем.
+     */
+    private void schedule(DueSubscriptionDto subscription, LocalDate fromDay) {
+        long horizon = horizonDay;
+
+        if (subscription.remindersEnabled()) {
+            int daysBefore = subscription.reminderDaysBefore();
+            LocalDate paymentDate = PaymentDates.upcoming(
+                    subscription.paymentDate(),
+                    subscription.renewalMonths(),
+                    fromDay.plusDays(daysBefore));
+
+            long reminderDay = paymentDate == null ? Long.MAX_VALUE : paymentDate.minusDays(daysBefore).toEpochDay();
+
+            if (reminderDay <= horizon) {
+                index.add(subscription.id(), reminderDay, Action.REMINDER);
+            }
+        }
+
+        if (renewalEnabled && subscription.renewalMonths() != null && subscription.renewalMonths() > 0) {
+            LocalDate renewalDay = subscription.paymentDate().isBefore(fromDay)
+                    ? fromDay
+                    : subscription.paymentDate().plusDays(1);
+
+            if (renewalDay.toEpochDay() <= horizon) {
+                index.add(subscription.id(), renewalDay.toEpochDay(), Action.RENEWAL);
+            }
+        }
+    }
+
+    private long bytesPerEntry() {
+        int size = index.size();
+        return size == 0 ? 0 : index.memoryBytes() / size;
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(PartitionedJobRunner.ZONE);
+    }
+}
@@ -0,0 +1,10 @@
+package com.halcyon.recurix.job;
+
+/**
+ * Захваченная экземпляром партиция ежедневной задачи.
+ *
+ * @param number          Номер партиции (от 0 до {@code count - 1}).
+ * @param count           Общее количество партиций в запуске.
+ * @param lastProcessedId ID последней обработанной записи (0, если обработка еще не начиналась).
+ */
+public record JobPartition(int number, int count, long lastProcessedId) {}
@@ -0,0 +1,95 @@
+package com.halcyon.recurix.job;
+
+import com.halcyon.recurix.config.JobProperties;
+import com.halcyon.recurix.repository.JobRunRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Догоняет запуски ежедневных задач, пропущенные, пока приложение было остановлено.
+ * <p>
+ * После старта приложения для каждой {@link PartitionedJob} сравнивает дату последнего
+ * успешного запуска с расписанием и выполняет пропущенные окна по порядку. Задачи,
+ * которые еще ни разу не завершались, пропускаются. Догоняющие
+ * запуски идут по одному, с паузами и одним воркером, чтобы не перегружать экземпляр,
+ * который еще прогревается.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MissedRunCatchUp {
+
+    private final List<PartitionedJob> jobs;
+    private final PartitionedJobRunner jobRunner;
+    private final JobRunRepository runRepository;
+    private final JobProperties properties;
+
+    private final Scheduler catchUpScheduler = Schedulers.newSingle("job-catch-up");
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpMissedRuns() {
+        Flux.fromIterable(jobs)
+                .concatMap(this::catchUp)
+                .delaySubscription(properties.getCatchUpInitialDelay(), catchUpScheduler)
+                .subscribeOn(catchUpScheduler)
+                .doOnError(e -> log.error("SCHEDULER: Catch-up of missed job runs failed.", e))
+                .subscribe();
+    }
+
+    /**
+     * Останавливает поток догоняющих запусков; незавершенный запуск прерывается
+     * и будет догнан при следующем старте.
+     */
+    @PreDestroy
+    public void shutdown() {
+        catchUpScheduler.dispose();
+    }
+
+    /**
+     * Последовательно выполняет все пропущенные запуски одной задачи.
+     *
+     * @param job Задача для проверки.
+     * @return {@code Flux} с количеством записей, обработанных в каждом догоняющем запуске.
+     */
+    private Flux<Long> catchUp(PartitionedJob job) {
+        return runRepository.findLastRunDate(job.name())
+                .map(lastRunDate -> missedRunDates(job, lastRunDate))
+                .switchIfEmpty(Mono.fromRunnable(() -> log.info(
+                        "SCHEDULER: Job {} has no completed runs yet, nothing to catch up.", job.name())))
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(runDate -> runMissed(job, runDate)
+                        .delayElement(properties.getCatchUpDelay(), catchUpScheduler));
+    }
+
+    private List<LocalDate> missedRunDates(PartitionedJob job, LocalDate lastRunDate) {
+        return ScheduleWindows.missedRunDates(
+                job.cron(),
+                PartitionedJobRunner.ZONE,
+                lastRunDate,
+                ZonedDateTime.now(PartitionedJobRunner.ZONE),
+                properties.getCatchUpLookBack());
+    }
+
+    private Mono<Long> runMissed(PartitionedJob job, LocalDate runDate) {
+        log.info("SCHEDULER: Catching up missed run of {} for {}", job.name(), runDate);
+
+        return jobRunner.run(job, runDate, 1)
+                .doOnSuccess(count -> log.info("SCHEDULER: Catch-up run of {} for {} finished. Processed {} records.",
+                        job.name(), runDate, count))
+                .onErrorResume(e -> {
+                    log.error("SCHEDULER: Catch-up run of {} for {} failed.", job.name(), runDate, e);
+                    return Mono.just(0L);
+                });
+    }
+}
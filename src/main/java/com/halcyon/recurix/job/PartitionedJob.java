@@ -0,0 +1,37 @@
+package com.halcyon.recurix.job;
+
+import java.time.LocalDate;
+import reactor.core.publisher.Flux;
+
+/**
+ * Ежедневная фоновая задача, работа которой делится на партиции по {@code user_id}.
+ * <p>
+ * Партиции распределяются между экземплярами приложения через {@link PartitionedJobRunner},
+ * поэтому задача должна уметь обработать любую партицию независимо от остальных.
+ */
+public interface PartitionedJob {
+
+    /**
+     * Уникальное имя задачи, под которым хранятся ее партиции.
+     */
+    String name();
+
+    /**
+     * Cron-выражение расписания задачи в часовом поясе {@link PartitionedJobRunner#ZONE}.
+     * <p>
+     * Используется для поиска запусков, пропущенных, пока приложение было остановлено.
+     */
+    String cron();
+
+    /**
+     * Обрабатывает записи одной партиции, начиная с {@link JobPartition#lastProcessedId()}.
+     * <p>
+     * ID обработанных записей должны выдаваться строго по возрастанию: по ним сохраняется
+     * прогресс, с которого обработка продолжится после сбоя.
+     *
+     * @param runDate   Дата запуска задачи.
+     * @param partition Захваченная партиция.
+     * @return {@code Flux} с ID обработанных записей.
+     */
+    Flux<Long> processPartition(LocalDate runDate, JobPartition partition);
+}
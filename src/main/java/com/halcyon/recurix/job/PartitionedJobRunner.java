@@ -0,0 +1,128 @@
+package com.halcyon.recurix.job;
+
+import com.halcyon.recurix.config.JobProperties;
+import com.halcyon.recurix.repository.JobPartitionRepository;
+import com.halcyon.recurix.repository.JobRunRepository;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Запускает {@link PartitionedJob} с распределением работы между экземплярами приложения.
+ * <p>
+ * Каждый запуск делится на партиции по {@code user_id}. Любой экземпляр захватывает
+ * свободные партиции, обрабатывает их и периодически сохраняет прогресс, поэтому
+ * ежедневная работа масштабируется вместе с количеством экземпляров, а после сбоя
+ * продолжается с последней сохраненной позиции.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionedJobRunner {
+
+    /**
+     * Часовой пояс, в котором определяется дата запуска ежедневных задач.
+     */
+    public static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+
+    private final JobPartitionRepository partitionRepository;
+    private final JobRunRepository runRepository;
+    private final JobProperties properties;
+
+    /**
+     * Обрабатывает все доступные партиции задачи за указанную дату.
+     *
+     * @param job     Задача для запуска.
+     * @param runDate Дата запуска.
+     * @return {@code Mono} с количеством записей, обработанных текущим экземпляром.
+     */
+    public Mono<Long> run(PartitionedJob job, LocalDate runDate) {
+        return run(job, runDate, properties.getWorkers());
+    }
+
+    /**
+     * Обрабатывает все доступные партиции задачи за указанную дату заданным числом воркеров.
+     * <p>
+     * Если после обработки не осталось незавершенных партиций, запуск отмечается как успешный.
+     *
+     * @param job     Задача для запуска.
+     * @param runDate Дата запуска.
+     * @param workers Количество партиций, обрабатываемых параллельно.
+     * @return {@code Mono} с количеством записей, обработанных текущим экземпляром.
+     */
+    public Mono<Long> run(PartitionedJob job, LocalDate runDate, int workers) {
+        return partitionRepository.createPartitions(job.name(), runDate, properties.getPartitions())
+                .thenMany(Flux.range(0, workers)
+                        .flatMap(worker -> claimAndProcessAll(job, runDate)))
+                .reduce(0L, Long::sum)
+                .flatMap(processed -> markCompletedIfFinished(job, runDate).thenReturn(processed));
+    }
+
+    private Mono<Void> markCompletedIfFinished(PartitionedJob job, LocalDate runDate) {
+        return partitionRepository.isRunFinished(job.name(), runDate)
+                .filter(Boolean::booleanValue)
+                .flatMap(finished -> runRepository.markCompleted(job.name(), runDate));
+    }
+
+    /**
+     * Последовательно захватывает и обрабатывает партиции, пока свободные не закончатся.
+     */
+    private Mono<Long> claimAndProcessAll(PartitionedJob job, LocalDate runDate) {
+        Mono<Long> claimAndProcess = Mono.defer(() -> partitionRepository
+                .claimNext(job.name(), runDate, properties.getInstanceId(), leaseCutoff()))
+                .flatMap(partition -> processPartition(job, runDate, partition));
+
+        return claimAndProcess
+                .expand(processed -> claimAndProcess)
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Обрабатывает одну партицию, сохраняя прогресс каждые {@code checkpointSize} записей.
+     * <p>
+     * При ошибке партиция остается захваченной и будет повторно выдана после истечения аренды.
+     */
+    private Mono<Long> processPartition(PartitionedJob job, LocalDate runDate, JobPartition partition) {
+        log.info("JOB {}: Processing partition {}/{} for {} from id {}",
+                job.name(), partition.number(), partition.count(), runDate, partition.lastProcessedId());
+
+        return job.processPartition(runDate, partition)
+                .buffer(properties.getCheckpointSize())
+                .concatMap(ids -> checkpoint(job, runDate, partition, ids))
+                .reduce(0L, Long::sum)
+                .flatMap(processed -> partitionRepository
+                        .complete(job.name(), runDate, partition.number(), properties.getInstanceId())
+                        .thenReturn(processed))
+                .doOnSuccess(processed -> log.info("JOB {}: Partition {} finished. Processed {} records.",
+                        job.name(), partition.number(), processed))
+                .onErrorResume(e -> {
+                    log.error("JOB {}: Partition {} failed and will be retried after lease expiry.",
+                            job.name(), partition.number(), e);
+                    return Mono.just(0L);
+                });
+    }
+
+    private Mono<Long> checkpoint(PartitionedJob job, LocalDate runDate, JobPartition partition, List<Long> ids) {
+        return partitionRepository.checkpoint(
+                job.name(),
+                runDate,
+                partition.number(),
+                properties.getInstanceId(),
+                ids.getLast(),
+                ids.size())
+                .filter(updated -> updated > 0)
+                .switchIfEmpty(Mono.error(new IllegalStateException(
+                        "Lease on partition " + partition.number() + " of job " + job.name() + " was lost")))
+                .thenReturn((long) ids.size());
+    }
+
+    private OffsetDateTime leaseCutoff() {
+        return OffsetDateTime.now(ZONE).minus(properties.getLease());
+    }
+}
@@ -0,0 +1,61 @@
+package com.halcyon.recurix.job;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.scheduling.support.CronExpression;
+
+/**
+ * Утилиты для вычисления окон запуска ежедневных задач по их cron-расписанию.
+ */
+public final class ScheduleWindows {
+
+    private ScheduleWindows() {}
+
+    /**
+     * Находит даты запусков, которые должны были наступить, но не были выполнены.
+     * <p>
+     * Учитываются только окна после {@code lastRunDate} и не старше {@code lookBack} от текущего
+     * момента. Результат упорядочен по возрастанию.
+     *
+     * @param cron        Cron-выражение расписания.
+     * @param zone        Часовой пояс расписания.
+     * @param lastRunDate Дата последнего успешного запуска (может быть null).
+     * @param now         Текущий момент.
+     * @param lookBack    Максимальная глубина поиска пропущенных запусков.
+     * @return Список дат пропущенных запусков.
+     */
+    public static List<LocalDate> missedRunDates(
+                                                 String cron,
+                                                 ZoneId zone,
+                                                 LocalDate lastRunDate,
+                                                 ZonedDateTime now,
+                                                 Duration lookBack) {
+        CronExpression expression = CronExpression.parse(cron);
+        ZonedDateTime current = now.withZoneSameInstant(zone);
+        ZonedDateTime from = current.minus(lookBack);
+
+        if (lastRunDate != null) {
+            ZonedDateTime afterLastRun = lastRunDate.plusDays(1).atStartOfDay(zone);
+            if (afterLastRun.isAfter(from)) {
+                from = afterLastRun.minusNanos(1);
+            }
+        }
+
+        List<LocalDate> missed = new ArrayList<>();
+        ZonedDateTime window = expression.next(from);
+
+        while (window != null && !window.isAfter(current)) {
+            LocalDate windowDate = window.toLocalDate();
+            if (missed.isEmpty() || !missed.getLast().equals(windowDate)) {
+                missed.add(windowDate);
+            }
+            window = expression.next(window);
+        }
+
+        return missed;
+    }
+}
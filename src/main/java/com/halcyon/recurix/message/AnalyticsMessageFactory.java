@@ -2,15 +2,18 @@ package com.halcyon.recurix.message;
 
 import com.halcyon.recurix.dto.AnalyticsDto;
 import com.halcyon.recurix.dto.CategorySpendingDto;
+import com.halcyon.recurix.dto.MonthSpendingDto;
+import com.halcyon.recurix.dto.YearAnalyticsDto;
 import com.halcyon.recurix.model.Subscription;
 import com.halcyon.recurix.service.LocalMessageService;
+import com.halcyon.recurix.support.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Year;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
 
@@ -21,6 +24,8 @@ public class AnalyticsMessageFactory {
     private final LocalMessageService messageService;
     private static final DateTimeFormatter MONTH_YEAR_FORMATTER =
             DateTimeFormatter.ofPattern("LLLL yyyy", Locale.forLanguageTag("ru"));
+    private static final DateTimeFormatter MONTH_FORMATTER =
+            DateTimeFormatter.ofPattern("LLLL", Locale.forLanguageTag("ru"));
 
     /**
      * Формирует полное текстовое сообщение для экрана аналитики.
@@ -32,44 +37,92 @@ public class AnalyticsMessageFactory {
     public String createAnalyticsMessage(AnalyticsDto analyticsDto, YearMonth yearMonth) {
         String title = yearMonth.format(MONTH_YEAR_FORMATTER);
 
-        if (analyticsDto.monthlyTotal().compareTo(BigDecimal.ZERO) == 0 && analyticsDto.totalSubscriptions() == 0) {
+        if (analyticsDto.monthlyTotal().isZero() && analyticsDto.totalSubscriptions() == 0) {
             return messageService.getMessage("analytics.month.empty", title);
         }
 
         return messageService.getMessage("analytics.header", title) + "\n\n" +
                 messageService.getMessage("analytics.total_subscriptions", analyticsDto.totalSubscriptions()) + "\n" +
-                messageService.getMessage("analytics.monthly_total", analyticsDto.monthlyTotal()) + "\n\n" +
-                buildCategoriesBlock(analyticsDto) + "\n\n" +
+                messageService.getMessage("analytics.monthly_total", analyticsDto.monthlyTotal().toBigDecimal()) + "\n\n" +
+                buildCategoriesBlock(analyticsDto.spendingByCategory(), analyticsDto.monthlyTotal()) + "\n\n" +
                 buildMostExpensiveBlock(analyticsDto.mostExpensive()) + "\n\n" +
                 buildNextPaymentBlock(analyticsDto.nextPayment());
     }
 
-    private String buildCategoriesBlock(AnalyticsDto analyticsDto) {
-        if (analyticsDto.spendingByCategory().isEmpty()) {
-            return "";
+    /**
+     * Формирует текстовое сообщение для экрана годовой аналитики.
+     *
+     * @param yearAnalyticsDto DTO с данными за год.
+     * @return Готовая строка для отправки в Telegram.
+     */
+    public String createYearAnalyticsMessage(YearAnalyticsDto yearAnalyticsDto) {
+        String title = String.valueOf(yearAnalyticsDto.year().getValue());
+
+        if (yearAnalyticsDto.totalPayments() == 0) {
+            return messageService.getMessage("analytics.year.empty", title);
         }
 
-        String categoriesList = analyticsDto.spendingByCategory().stream()
-                .map(category -> formatCategoryLine(category, analyticsDto.monthlyTotal()))
+        return messageService.getMessage("analytics.year.header", title) + "\n\n" +
+                messageService.getMessage("analytics.year.total_payments", yearAnalyticsDto.totalPayments()) + "\n" +
+                messageService.getMessage("analytics.year.total", yearAnalyticsDto.yearTotal().toBigDecimal()) + "\n\n" +
+                buildMonthsBlock(yearAnalyticsDto) + "\n\n" +
+                buildCategoriesBlock(yearAnalyticsDto.spendingByCategory(), yearAnalyticsDto.yearTotal());
+    }
+
+    /**
+     * Формирует подпись к диаграмме расходов за месяц.
+     *
+     * @param yearMonth Месяц диаграммы.
+     * @return Подпись в формате Markdown.
+     */
+    public String createMonthChartCaption(YearMonth yearMonth) {
+        return messageService.getMessage("analytics.chart.month_caption", yearMonth.format(MONTH_YEAR_FORMATTER));
+    }
+
+    /**
+     * Формирует подпись к диаграмме расходов за год.
+     *
+     * @param year Год диаграммы.
+     * @return Подпись в формате Markdown.
+     */
+    public String createYearChartCaption(Year year) {
+        return messageService.getMessage("analytics.chart.year_caption", String.valueOf(year.getValue()));
+    }
+
+    private String buildMonthsBlock(YearAnalyticsDto yearAnalyticsDto) {
+        String monthsList = yearAnalyticsDto.spendingByMonth().stream()
+                .map(this::formatMonthLine)
                 .collect(Collectors.joining("\n"));
 
-        return messageService.getMessage("analytics.categories_header") + "\n" + categoriesList;
+        return messageService.getMessage("analytics.year.months_header") + "\n" + monthsList;
     }
 
-    private String formatCategoryLine(CategorySpendingDto categoryDto, BigDecimal monthlyTotal) {
-        BigDecimal percentage = BigDecimal.ZERO;
+    private String formatMonthLine(MonthSpendingDto monthDto) {
+        String monthName = monthDto.month().format(MONTH_FORMATTER);
+
+        return messageService.getMessage("analytics.year.month_item",
+                Character.toUpperCase(monthName.charAt(0)) + monthName.substring(1),
+                monthDto.total().toBigDecimal());
+    }
 
-        if (monthlyTotal.compareTo(BigDecimal.ZERO) > 0) {
-            percentage = categoryDto.total()
-                    .multiply(new BigDecimal(100))
-                    .divide(monthlyTotal, 0, RoundingMode.HALF_UP);
+    private String buildCategoriesBlock(List<CategorySpendingDto> spendingByCategory, Money total) {
+        if (spendingByCategory.isEmpty()) {
+            return "";
         }
 
+        String categoriesList = spendingByCategory.stream()
+                .map(category -> formatCategoryLine(category, total))
+                .collect(Collectors.joining("\n"));
+
+        return messageService.getMessage("analytics.categories_header") + "\n" + categoriesList;
+    }
+
+    private String formatCategoryLine(CategorySpendingDto categoryDto, Money monthlyTotal) {
         return messageService.getMessage("analytics.category_item",
                 getEmojiForCategory(categoryDto.category()),
                 categoryDto.category(),
-                categoryDto.total(),
-                percentage);
+                categoryDto.total().toBigDecimal(),
+                categoryDto.total().percentOf(monthlyTotal));
     }
 
     private String getEmojiForCategory(String category) {
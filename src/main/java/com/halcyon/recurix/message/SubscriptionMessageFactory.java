@@ -1,12 +1,14 @@
 package com.halcyon.recurix.message;
 
 import com.halcyon.recurix.exception.InvalidInputException;
+import com.halcyon.recurix.job.PartitionedJobRunner;
 import com.halcyon.recurix.model.Subscription;
 import com.halcyon.recurix.service.KeyboardService;
 import com.halcyon.recurix.service.LocalMessageService;
 import com.halcyon.recurix.service.context.SubscriptionListContext;
 import com.halcyon.recurix.service.pagination.Page;
 import com.halcyon.recurix.support.PayloadEncoder;
+import com.halcyon.recurix.support.PaymentDates;
 import com.halcyon.recurix.support.PeriodFormatter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
@@ -17,6 +19,7 @@ import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageTe
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
@@ -104,7 +107,7 @@ public class SubscriptionMessageFactory {
                         "subscriptions.list.item",
                         subscription.getName(),
                         subscription.getPrice(),
-                        subscription.getPaymentDate().format(DATE_FORMATTER),
+                        effectivePaymentDate(subscription).format(DATE_FORMATTER),
                         "/view_" + payloadEncoder.encode(subscription.getId(), page.currentPage(), messageId)))
                 .collect(Collectors.joining("\n\n"));
 
@@ -126,8 +129,16 @@ public class SubscriptionMessageFactory {
                 "subscription.detail.header",
                 subscription.getName(),
                 subscription.getPrice(),
-                subscription.getPaymentDate().format(DATE_FORMATTER),
+                effectivePaymentDate(subscription).format(DATE_FORMATTER),
                 subscription.getCategory(),
                 periodFormatter.format(subscription.getRenewalMonths()));
     }
+
+    /**
+     * Возвращает ближайшую дату платежа с учетом периода продления,
+     * даже если хранимая дата еще не обновлена фоновой задачей.
+     */
+    private LocalDate effectivePaymentDate(Subscription subscription) {
+        return PaymentDates.effective(subscription.getPaymentDate(), subscription.getRenewalMonths(), LocalDate.now(PartitionedJobRunner.ZONE));
+    }
 }
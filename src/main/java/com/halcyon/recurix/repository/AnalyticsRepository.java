@@ -0,0 +1,353 @@
+package com.halcyon.recurix.repository;
+
+import com.halcyon.recurix.dto.AnalyticsDto;
+import com.halcyon.recurix.dto.CategorySpendingDto;
+import com.halcyon.recurix.dto.MonthSpendingDto;
+import com.halcyon.recurix.dto.YearAnalyticsDto;
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.support.Money;
+import io.r2dbc.spi.Row;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Аналитические запросы по подпискам.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsRepository {
+
+    /**
+     * Вся месячная сводка одним запросом.
+     * <p>
+     * Возвращает по строке на категорию месяца (или одну строку, если платежей в месяце нет).
+     * Количество и сумма считаются оконными функциями, самая дорогая подписка выбирается
+     * через {@code ROW_NUMBER()}, ближайший платеж — отдельным CTE по тем же строкам пользователя
+     * с датой не раньше начала месяца (разовая подписка с прошедшей датой ближайшим платежом не считается);
+     * эти значения повторяются в каждой строке.
+     */
+    private static final String MONTH_ANALYTICS = """
+            WITH user_subscriptions AS (
+                SELECT id, user_id, name, price, renewal_months, category,
+                    effective_payment_date(payment_date, renewal_months, :startOfMonth) AS due_date
+                FROM subscriptions
+                WHERE user_id = :userId
+            ),
+            month_subscriptions AS (
+                SELECT *,
+                    COUNT(*) OVER () AS total_count,
+                    SUM(price) OVER () AS month_total,
+                    ROW_NUMBER() OVER (ORDER BY price DESC, id) AS price_rank
+                FROM user_subscriptions
+                WHERE due_date BETWEEN :startOfMonth AND :endOfMonth
+            ),
+            next_payment AS (
+                SELECT *
+                FROM user_subscriptions
+                WHERE due_date >= :startOfMonth
+                ORDER BY due_date, id
+                LIMIT 1
+            ),
+            categories AS (
+                SELECT category, SUM(price) AS category_total
+                FROM month_subscriptions
+                GROUP BY category
+            )
+            SELECT
+                COALESCE(top.total_count, 0) AS total_count,
+                COALESCE(top.month_total, 0) AS month_total,
+                top.id AS top_id, top.user_id AS top_user_id, top.name AS top_name, top.price AS top_price,
+                top.due_date AS top_payment_date, top.renewal_months AS top_renewal_months, top.category AS top_category,
+                np.id AS next_id, np.user_id AS next_user_id, np.name AS next_name, np.price AS next_price,
+                np.due_date AS next_payment_date, np.renewal_months AS next_renewal_months, np.category AS next_category,
+                c.category, c.category_total
+            FROM (SELECT 1) AS summary
+            LEFT JOIN month_subscriptions top ON top.price_rank = 1
+            LEFT JOIN next_payment np ON true
+            LEFT JOIN categories c ON true
+            ORDER BY c.category_total DESC NULLS LAST
+            """;
+
+    /**
+     * Месячная сводка по агрегатам {@code user_month_category_totals}.
+     * <p>
+     * Количество, сумма и категории читаются из готовых строк месяца; самая дорогая подписка
+     * и ближайший платеж по-прежнему выбираются из подписок пользователя по ближайшей дате
+     * платежа от начала месяца, как в {@link #MONTH_ANALYTICS}. Агрегаты хранят и платежи,
+     * учтенные до того, как продление сдвинуло опорную дату за месяц, а подписки — нет, поэтому
+     * для таких месяцев самой дорогой подписки может не быть при ненулевой сумме.
+     * Колонки совпадают с {@link #MONTH_ANALYTICS}.
+     */
+    private static final String AGGREGATED_MONTH_ANALYTICS = """
+            WITH user_subscriptions AS (
+                SELECT id, user_id, name, price, renewal_months, category,
+                    effective_payment_date(payment_date, renewal_months, :startOfMonth) AS due_date
+                FROM subscriptions
+                WHERE user_id = :userId
+            ),
+            most_expensive AS (
+                SELECT *
+                FROM user_subscriptions
+                WHERE due_date BETWEEN :startOfMonth AND :endOfMonth
+                ORDER BY price DESC, id
+                LIMIT 1
+            ),
+            next_payment AS (
+                SELECT *
+                FROM user_subscriptions
+                WHERE due_date >= :startOfMonth
+                ORDER BY due_date, id
+                LIMIT 1
+            ),
+            categories AS (
+                SELECT NULLIF(category, '') AS category, total AS category_total,
+                    SUM(payments) OVER () AS total_count,
+                    SUM(total) OVER () AS month_total
+                FROM user_month_category_totals
+                WHERE user_id = :userId
+                AND month = :startOfMonth
+            )
+            SELECT
+                COALESCE(c.total_count, 0) AS total_count,
+                COALESCE(c.month_total, 0) AS month_total,
+                top.id AS top_id, top.user_id AS top_user_id, top.name AS top_name, top.price AS top_price,
+                top.due_date AS top_payment_date, top.renewal_months AS top_renewal_months, top.category AS top_category,
+                np.id AS next_id, np.user_id AS next_user_id, np.name AS next_name, np.price AS next_price,
+                np.due_date AS next_payment_date, np.renewal_months AS next_renewal_months, np.category AS next_category,
+                c.category, c.category_total
+            FROM (SELECT 1) AS summary
+            LEFT JOIN most_expensive top ON true
+            LEFT JOIN next_payment np ON true
+            LEFT JOIN categories c ON true
+            ORDER BY c.category_total DESC NULLS LAST
+            """;
+
+    /**
+     * Годовая сводка одним запросом.
+     * <p>
+     * Каждая подписка разворачивается в платежи года через {@code generate_series} с шагом
+     * {@code renewal_months}, начиная с ближайшей даты платежа от начала года. Суммы по месяцам,
+     * по категориям и за год считаются за один проход через {@code GROUPING SETS};
+     * вид строки определяется по {@code GROUPING()}.
+     */
+    private static final String YEAR_ANALYTICS = """
+            WITH payments AS (
+                SELECT s.price, s.category,
+                    CAST(EXTRACT(MONTH FROM p.payment_date) AS INTEGER) AS month
+                FROM subscriptions s
+                CROSS JOIN LATERAL generate_series(
+                    effective_payment_date(s.payment_date, s.renewal_months, :startOfYear),
+                    CASE WHEN s.renewal_months > 0
+                        THEN CAST(:endOfYear AS DATE)
+                        ELSE effective_payment_date(s.payment_date, s.renewal_months, :startOfYear)
+                    END,
+                    make_interval(months => GREATEST(s.renewal_months, 1))) AS p (payment_date)
+                WHERE s.user_id = :userId
+                AND p.payment_date BETWEEN :startOfYear AND :endOfYear
+            )
+            SELECT month, category,
+                SUM(price) AS total,
+                COUNT(*) AS payments,
+                GROUPING(month) AS month_grouped,
+                GROUPING(category) AS category_grouped
+            FROM payments
+            GROUP BY GROUPING SETS ((month), (category), ())
+            """;
+
+    /**
+     * Годовая сводка по агрегатам {@code user_month_category_totals}: те же {@code GROUPING SETS},
+     * что и в {@link #YEAR_ANALYTICS}, но по двенадцати готовым месяцам вместо развернутых платежей.
+     */
+    private static final String AGGREGATED_YEAR_ANALYTICS = """
+            SELECT month, category,
+                SUM(total) AS total,
+                COALESCE(SUM(payments), 0) AS payments,
+                GROUPING(month) AS month_grouped,
+                GROUPING(category) AS category_grouped
+            FROM (
+                SELECT CAST(EXTRACT(MONTH FROM month) AS INTEGER) AS month,
+                    NULLIF(category, '') AS category, total, payments
+                FROM user_month_category_totals
+                WHERE user_id = :userId
+                AND month BETWEEN :startOfYear AND :endOfYear
+            ) AS totals
+            GROUP BY GROUPING SETS ((month), (category), ())
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Собирает месячную сводку за один запрос к БД.
+     *
+     * @param userId       ID пользователя.
+     * @param startOfMonth Первый день месяца.
+     * @param endOfMonth   Последний день месяца.
+     * @return {@code Mono} с готовым {@link AnalyticsDto}.
+     */
+    public Mono<AnalyticsDto> findMonthAnalytics(Long userId, LocalDate startOfMonth, LocalDate endOfMonth) {
+        return monthAnalytics(MONTH_ANALYTICS, userId, startOfMonth, endOfMonth);
+    }
+
+    /**
+     * Собирает месячную сводку по готовым агрегатам.
+     * Месяц должен быть покрыт агрегатами (см. {@code SpendingAggregatesService#covers}).
+     *
+     * @param userId       ID пользователя.
+     * @param startOfMonth Первый день месяца.
+     * @param endOfMonth   Последний день месяца.
+     * @return {@code Mono} с готовым {@link AnalyticsDto}.
+     */
+    public Mono<AnalyticsDto> findAggregatedMonthAnalytics(Long userId, LocalDate startOfMonth, LocalDate endOfMonth) {
+        return monthAnalytics(AGGREGATED_MONTH_ANALYTICS, userId, startOfMonth, endOfMonth);
+    }
+
+    private Mono<AnalyticsDto> monthAnalytics(String sql, Long userId, LocalDate startOfMonth, LocalDate endOfMonth) {
+        return databaseClient.sql(sql)
+                .bind("userId", userId)
+                .bind("startOfMonth", startOfMonth)
+                .bind("endOfMonth", endOfMonth)
+                .map((row, metadata) -> new MonthRow(
+                        row.get("total_count", Long.class),
+                        Money.of(row.get("month_total", BigDecimal.class)),
+                        subscription(row, "top_"),
+                        subscription(row, "next_"),
+                        row.get("category_total", BigDecimal.class) == null
+                                ? null
+                                : new CategorySpendingDto(
+                                        row.get("category", String.class),
+                                        Money.of(row.get("category_total", BigDecimal.class)))))
+                .all()
+                .collectList()
+                .map(AnalyticsRepository::toDto);
+    }
+
+    /**
+     * Собирает годовую сводку за один запрос к БД.
+     *
+     * @param userId ID пользователя.
+     * @param year   Год.
+     * @return {@code Mono} с готовым {@link YearAnalyticsDto}; месяцы без платежей имеют нулевую сумму.
+     */
+    public Mono<YearAnalyticsDto> findYearAnalytics(Long userId, Year year) {
+        return yearAnalytics(YEAR_ANALYTICS, userId, year);
+    }
+
+    /**
+     * Собирает годовую сводку по готовым агрегатам.
+     * Все месяцы года должны быть покрыты агрегатами.
+     *
+     * @param userId ID пользователя.
+     * @param year   Год.
+     * @return {@code Mono} с готовым {@link YearAnalyticsDto}.
+     */
+    public Mono<YearAnalyticsDto> findAggregatedYearAnalytics(Long userId, Year year) {
+        return yearAnalytics(AGGREGATED_YEAR_ANALYTICS, userId, year);
+    }
+
+    private Mono<YearAnalyticsDto> yearAnalytics(String sql, Long userId, Year year) {
+        return databaseClient.sql(sql)
+                .bind("userId", userId)
+                .bind("startOfYear", year.atDay(1))
+                .bind("endOfYear", year.atMonth(12).atEndOfMonth())
+                .map((row, metadata) -> new YearRow(
+                        row.get("month", Integer.class),
+                        row.get("category", String.class),
+                        Money.toMinorUnits(row.get("total", BigDecimal.class)),
+                        row.get("payments", Long.class),
+                        row.get("month_grouped", Integer.class) == 1,
+                        row.get("category_grouped", Integer.class) == 1))
+                .all()
+                .collectList()
+                .map(rows -> toYearDto(year, rows));
+    }
+
+    private static YearAnalyticsDto toYearDto(Year year, List<YearRow> rows) {
+        long[] monthTotals = new long[12];
+
+        List<CategorySpendingDto> categories = new ArrayList<>();
+        long yearTotal = 0;
+        long payments = 0;
+
+        for (YearRow row : rows) {
+            if (row.monthGrouped() && row.categoryGrouped()) {
+                yearTotal = row.total();
+                payments = row.payments();
+            } else if (row.categoryGrouped()) {
+                monthTotals[row.month() - 1] = row.total();
+            } else {
+                categories.add(new CategorySpendingDto(row.category(), Money.ofMinor(row.total())));
+            }
+        }
+
+        categories.sort(Comparator.comparing(CategorySpendingDto::total).reversed());
+
+        return YearAnalyticsDto.builder()
+                .year(year)
+                .totalPayments((int) payments)
+                .yearTotal(Money.ofMinor(yearTotal))
+                .spendingByMonth(IntStream.rangeClosed(1, 12)
+                        .mapToObj(month -> new MonthSpendingDto(year.atMonth(month), Money.ofMinor(monthTotals[month - 1])))
+                        .toList())
+                .spendingByCategory(categories)
+                .build();
+    }
+
+    private static AnalyticsDto toDto(List<MonthRow> rows) {
+        MonthRow summary = rows.getFirst();
+
+        return AnalyticsDto.builder()
+                .totalSubscriptions(summary.totalCount().intValue())
+                .monthlyTotal(summary.monthTotal())
+                .spendingByCategory(rows.stream()
+                        .map(MonthRow::category)
+                        .filter(Objects::nonNull)
+                        .toList())
+                .mostExpensive(summary.mostExpensive())
+                .nextPayment(summary.nextPayment())
+                .build();
+    }
+
+    private static Subscription subscription(Row row, String prefix) {
+        Long id = row.get(prefix + "id", Long.class);
+        if (id == null) {
+            return null;
+        }
+
+        return Subscription.builder()
+                .id(id)
+                .userId(row.get(prefix + "user_id", Long.class))
+                .name(row.get(prefix + "name", String.class))
+                .price(row.get(prefix + "price", BigDecimal.class))
+                .paymentDate(row.get(prefix + "payment_date", LocalDate.class))
+                .renewalMonths(row.get(prefix + "renewal_months", Integer.class))
+                .category(row.get(prefix + "category", String.class))
+                .build();
+    }
+
+    private record YearRow(
+            Integer month,
+            String category,
+            long total,
+            Long payments,
+            boolean monthGrouped,
+            boolean categoryGrouped) {
+    }
+
+    private record MonthRow(
+            Long totalCount,
+            Money monthTotal,
+            Subscription mostExpensive,
+            Subscription nextPayment,
+            CategorySpendingDto category) {
+    }
+}
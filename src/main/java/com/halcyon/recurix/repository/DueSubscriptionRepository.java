@@ -0,0 +1,91 @@
+package com.halcyon.recurix.repository;
+
+import com.halcyon.recurix.dto.DueSubscriptionDto;
+import io.r2dbc.spi.Row;
+import java.time.LocalDate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Чтение подписок вместе с настройками напоминаний для планировщика сроков.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DueSubscriptionRepository {
+
+    private static final String SELECT_DUE = """
+            SELECT s.id, s.payment_date, s.renewal_months,
+                COALESCE(us.reminders_enabled, false) AS reminders_enabled,
+                COALESCE(us.reminder_days_before, 0) AS reminder_days_before
+            FROM subscriptions s
+            LEFT JOIN user_settings us ON us.user_id = s.user_id
+            """;
+
+    private static final String REMINDER_DUE = """
+            (
+                COALESCE(us.reminders_enabled, false)
+                AND effective_payment_date(s.payment_date, s.renewal_months, CAST(:fromDay AS DATE) + us.reminder_days_before)
+                    BETWEEN CAST(:fromDay AS DATE) + us.reminder_days_before AND CAST(:untilDay AS DATE) + us.reminder_days_before
+            )
+            """;
+
+    private static final String RENEWAL_DUE = """
+            OR (
+                s.renewal_months > 0
+                AND s.payment_date < :untilDay
+            )
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Потоково читает подписки, у которых есть напоминание или продление со сроком
+     * не позже {@code untilDay}, считая сроки начиная с {@code fromDay}.
+     * <p>
+     * Условия повторяют вычисление сроков в {@code DueDateScheduler}: день напоминания —
+     * ближайшая дата платежа не раньше {@code fromDay + reminder_days_before} минус
+     * {@code reminder_days_before} (у разовой подписки с прошедшей датой его нет),
+     * день продления — день после опорной даты или {@code fromDay}. Без продления опорные
+     * даты не сдвигаются, поэтому условие продления совпало бы с каждой регулярной подпиской
+     * при каждой загрузке; в этом случае оно не добавляется в запрос.
+     *
+     * @param fromDay        Первый день, с которого считаются сроки.
+     * @param untilDay       Последний день окна включительно.
+     * @param renewalEnabled Включено ли продление подписок.
+     * @return {@code Flux} с подписками.
+     */
+    public Flux<DueSubscriptionDto> streamDueWithin(LocalDate fromDay, LocalDate untilDay, boolean renewalEnabled) {
+        String condition = renewalEnabled ? REMINDER_DUE + RENEWAL_DUE : REMINDER_DUE;
+
+        return databaseClient.sql(SELECT_DUE + "WHERE " + condition)
+                .bind("fromDay", fromDay)
+                .bind("untilDay", untilDay)
+                .map((row, metadata) -> toDto(row))
+                .all();
+    }
+
+    /**
+     * Загружает одну подписку.
+     *
+     * @param subscriptionId ID подписки.
+     * @return {@code Mono} с подпиской или пустой, если она удалена.
+     */
+    public Mono<DueSubscriptionDto> findById(long subscriptionId) {
+        return databaseClient.sql(SELECT_DUE + "WHERE s.id = :subscriptionId")
+                .bind("subscriptionId", subscriptionId)
+                .map((row, metadata) -> toDto(row))
+                .one();
+    }
+
+    private static DueSubscriptionDto toDto(Row row) {
+        return new DueSubscriptionDto(
+                row.get("id", Long.class),
+                row.get("payment_date", LocalDate.class),
+                row.get("renewal_months", Integer.class),
+                row.get("reminders_enabled", Boolean.class),
+                row.get("reminder_days_before", Integer.class));
+    }
+}
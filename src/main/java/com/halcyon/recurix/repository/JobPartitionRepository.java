@@ -0,0 +1,175 @@
+package com.halcyon.recurix.repository;
+
+import com.halcyon.recurix.job.JobPartition;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Хранилище партиций фоновых задач (таблица {@code job_partitions}).
+ * <p>
+ * Захват партиций выполняется через {@code SELECT ... FOR UPDATE SKIP LOCKED},
+ * поэтому несколько экземпляров приложения могут разбирать партиции одного
+ * запуска одновременно, не блокируя друг друга.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JobPartitionRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Создает партиции запуска, если они еще не были созданы другим экземпляром.
+     *
+     * @param jobName        Имя задачи.
+     * @param runDate        Дата запуска.
+     * @param partitionCount Количество партиций.
+     * @return {@code Mono<Void>}, завершающийся после вставки.
+     */
+    public Mono<Void> createPartitions(String jobName, LocalDate runDate, int partitionCount) {
+        return databaseClient.sql("""
+                INSERT INTO job_partitions (job_name, run_date, partition_no, partition_count)
+                SELECT :jobName, :runDate, g, :partitionCount
+                FROM generate_series(0, :partitionCount - 1) g
+                ON CONFLICT DO NOTHING
+                """)
+                .bind("jobName", jobName)
+                .bind("runDate", runDate)
+                .bind("partitionCount", partitionCount)
+                .then();
+    }
+
+    /**
+     * Захватывает следующую свободную партицию запуска.
+     * <p>
+     * Свободной считается партиция, которую еще никто не брал, либо партиция,
+     * чей владелец не обновлял прогресс дольше срока аренды.
+     *
+     * @param jobName     Имя задачи.
+     * @param runDate     Дата запуска.
+     * @param instanceId  Идентификатор захватывающего экземпляра.
+     * @param leaseCutoff Момент, раньше которого аренда партиции считается истекшей.
+     * @return {@code Mono} с захваченной партицией или пустой, если свободных партиций нет.
+     */
+    public Mono<JobPartition> claimNext(String jobName, LocalDate runDate, String instanceId, OffsetDateTime leaseCutoff) {
+        return databaseClient.sql("""
+                UPDATE job_partitions jp
+                SET status = 'RUNNING', claimed_by = :instanceId, claimed_at = NOW()
+                FROM (
+                    SELECT job_name, run_date, partition_no
+                    FROM job_partitions
+                    WHERE job_name = :jobName
+                    AND run_date = :runDate
+                    AND (status = 'PENDING' OR (status = 'RUNNING' AND claimed_at < :leaseCutoff))
+                    ORDER BY partition_no
+                    LIMIT 1
+                    FOR UPDATE SKIP LOCKED
+                ) candidate
+                WHERE jp.job_name = candidate.job_name
+                AND jp.run_date = candidate.run_date
+                AND jp.partition_no = candidate.partition_no
+                RETURNING jp.partition_no, jp.partition_count, jp.last_processed_id
+                """)
+                .bind("jobName", jobName)
+                .bind("runDate", runDate)
+                .bind("instanceId", instanceId)
+                .bind("leaseCutoff", leaseCutoff)
+                .map((row, metadata) -> new JobPartition(
+                        row.get("partition_no", Integer.class),
+                        row.get("partition_count", Integer.class),
+                        row.get("last_processed_id", Long.class)))
+                .one();
+    }
+
+    /**
+     * Сохраняет прогресс партиции и продлевает ее аренду.
+     *
+     * @param jobName         Имя задачи.
+     * @param runDate         Дата запуска.
+     * @param partitionNumber Номер партиции.
+     * @param instanceId      Идентификатор экземпляра-владельца.
+     * @param lastProcessedId ID последней обработанной записи.
+     * @param processed       Количество записей, обработанных с прошлого сохранения.
+     * @return {@code Mono} с количеством обновленных строк (0, если партицию перехватил другой
+     *             экземпляр).
+     */
+    public Mono<Long> checkpoint(
+                                 String jobName,
+                                 LocalDate runDate,
+                                 int partitionNumber,
+                                 String instanceId,
+                                 long lastProcessedId,
+                                 int processed) {
+        return databaseClient.sql("""
+                UPDATE job_partitions
+                SET last_processed_id = :lastProcessedId,
+                    processed_count = processed_count + :processed,
+                    claimed_at = NOW()
+                WHERE job_name = :jobName
+                AND run_date = :runDate
+                AND partition_no = :partitionNumber
+                AND claimed_by = :instanceId
+                AND status = 'RUNNING'
+                """)
+                .bind("jobName", jobName)
+                .bind("runDate", runDate)
+                .bind("partitionNumber", partitionNumber)
+                .bind("instanceId", instanceId)
+                .bind("lastProcessedId", lastProcessedId)
+                .bind("processed", processed)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Помечает партицию как полностью обработанную.
+     *
+     * @param jobName         Имя задачи.
+     * @param runDate         Дата запуска.
+     * @param partitionNumber Номер партиции.
+     * @param instanceId      Идентификатор экземпляра-владельца.
+     * @return {@code Mono} с количеством обновленных строк.
+     */
+    public Mono<Long> complete(String jobName, LocalDate runDate, int partitionNumber, String instanceId) {
+        return databaseClient.sql("""
+                UPDATE job_partitions
+                SET status = 'DONE', finished_at = NOW()
+                WHERE job_name = :jobName
+                AND run_date = :runDate
+                AND partition_no = :partitionNumber
+                AND claimed_by = :instanceId
+                AND status = 'RUNNING'
+                """)
+                .bind("jobName", jobName)
+                .bind("runDate", runDate)
+                .bind("partitionNumber", partitionNumber)
+                .bind("instanceId", instanceId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Проверяет, обработаны ли все партиции запуска.
+     *
+     * @param jobName Имя задачи.
+     * @param runDate Дата запуска.
+     * @return {@code Mono} с {@code true}, если незавершенных партиций не осталось.
+     */
+    public Mono<Boolean> isRunFinished(String jobName, LocalDate runDate) {
+        return databaseClient.sql("""
+                SELECT NOT EXISTS (
+                    SELECT 1 FROM job_partitions
+                    WHERE job_name = :jobName
+                    AND run_date = :runDate
+                    AND status <> 'DONE'
+                ) AS finished
+                """)
+                .bind("jobName", jobName)
+                .bind("runDate", runDate)
+                .map((row, metadata) -> row.get("finished", Boolean.class))
+                .one();
+    }
+}
@@ -0,0 +1,53 @@
+package com.halcyon.recurix.repository;
+
+import java.time.LocalDate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Хранилище дат последних успешных запусков фоновых задач (таблица {@code job_runs}).
+ */
+@Repository
+@RequiredArgsConstructor
+public class JobRunRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Возвращает дату последнего успешно завершенного запуска задачи.
+     *
+     * @param jobName Имя задачи.
+     * @return {@code Mono} с датой или пустой, если задача еще ни разу не завершалась.
+     */
+    public Mono<LocalDate> findLastRunDate(String jobName) {
+        return databaseClient.sql("SELECT last_run_date FROM job_runs WHERE job_name = :jobName")
+                .bind("jobName", jobName)
+                .map((row, metadata) -> row.get("last_run_date", LocalDate.class))
+                .one();
+    }
+
+    /**
+     * Отмечает запуск задачи за указанную дату как завершенный.
+     * <p>
+     * Дата последнего запуска никогда не сдвигается назад, поэтому порядок
+     * завершения запусков разными экземплярами не важен.
+     *
+     * @param jobName Имя задачи.
+     * @param runDate Дата завершенного запуска.
+     * @return {@code Mono<Void>}, завершающийся после сохранения.
+     */
+    public Mono<Void> markCompleted(String jobName, LocalDate runDate) {
+        return databaseClient.sql("""
+                INSERT INTO job_runs (job_name, last_run_date, completed_at)
+                VALUES (:jobName, :runDate, NOW())
+                ON CONFLICT (job_name) DO UPDATE
+                SET last_run_date = GREATEST(job_runs.last_run_date, EXCLUDED.last_run_date),
+                    completed_at = NOW()
+                """)
+                .bind("jobName", jobName)
+                .bind("runDate", runDate)
+                .then();
+    }
+}
@@ -0,0 +1,139 @@
+package com.halcyon.recurix.repository;
+
+import com.halcyon.recurix.dto.MonthCategoryDeltaDto;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Хранилище месячных агрегатов расходов (таблица {@code user_month_category_totals}).
+ * <p>
+ * Агрегаты покрывают месяцы до {@code until_month} из таблицы {@code user_month_totals_coverage}.
+ * Запись изменений подписок берет на эту строку разделяемую блокировку, а расширение
+ * покрытия — исключительную, поэтому новые месяцы и изменения подписок не теряют друг друга.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MonthlyTotalsRepository {
+
+    private static final String UPSERT_DELTA = """
+            INSERT INTO user_month_category_totals (user_id, month, category, total, payments)
+            VALUES ($1, $2, $3, $4, $5)
+            ON CONFLICT (user_id, month, category) DO UPDATE
+            SET total = user_month_category_totals.total + EXCLUDED.total,
+                payments = user_month_category_totals.payments + EXCLUDED.payments
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Возвращает последний покрытый агрегатами месяц.
+     *
+     * @return {@code Mono} с первым днем последнего покрытого месяца.
+     */
+    public Mono<LocalDate> findCoveredUntil() {
+        return databaseClient.sql("SELECT until_month FROM user_month_totals_coverage")
+                .map((row, metadata) -> row.get("until_month", LocalDate.class))
+                .one();
+    }
+
+    /**
+     * Возвращает последний покрытый месяц, блокируя его от расширения до конца текущей транзакции.
+     * Вызывается внутри транзакции, изменяющей подписки.
+     *
+     * @return {@code Mono} с первым днем последнего покрытого месяца.
+     */
+    public Mono<LocalDate> lockCoveredUntil() {
+        return databaseClient.sql("SELECT until_month FROM user_month_totals_coverage FOR SHARE")
+                .map((row, metadata) -> row.get("until_month", LocalDate.class))
+                .one();
+    }
+
+    /**
+     * Применяет изменения агрегатов и удаляет опустевшие строки.
+     * <p>
+     * Все изменения отправляются одним батчем подготовленного запроса через {@link Statement#add()}.
+     *
+     * @param deltas Изменения.
+     * @return {@code Mono<Void>}, завершающийся после записи.
+     */
+    public Mono<Void> apply(List<MonthCategoryDeltaDto> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        Set<Long> userIds = deltas.stream()
+                .map(MonthCategoryDeltaDto::userId)
+                .collect(Collectors.toSet());
+
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(UPSERT_DELTA);
+                    for (int i = 0; i < deltas.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        bindDelta(statement, deltas.get(i));
+                    }
+                    return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                })
+                .then(databaseClient.sql("DELETE FROM user_month_category_totals WHERE user_id IN (:userIds) AND payments <= 0")
+                        .bind("userIds", userIds)
+                        .then());
+    }
+
+    private static void bindDelta(Statement statement, MonthCategoryDeltaDto delta) {
+        statement.bind(0, delta.userId())
+                .bind(1, delta.month())
+                .bind(2, delta.category())
+                .bind(3, delta.total())
+                .bind(4, delta.payments());
+    }
+
+    /**
+     * Расширяет покрытие агрегатов до указанного месяца, досчитывая новые месяцы по всем подпискам.
+     *
+     * @param targetMonth Первый день месяца, до которого нужно покрытие.
+     * @return {@code Mono} с первым днем последнего покрытого месяца после расширения.
+     */
+    public Mono<LocalDate> extendCoverage(LocalDate targetMonth) {
+        return databaseClient.sql("SELECT until_month FROM user_month_totals_coverage FOR UPDATE")
+                .map((row, metadata) -> row.get("until_month", LocalDate.class))
+                .one()
+                .flatMap(until -> !until.isBefore(targetMonth)
+                        ? Mono.just(until)
+                        : aggregateMonths(until.plusMonths(1), targetMonth)
+                                .then(databaseClient.sql("UPDATE user_month_totals_coverage SET until_month = :targetMonth")
+                                        .bind("targetMonth", targetMonth)
+                                        .then())
+                                .thenReturn(targetMonth))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Void> aggregateMonths(LocalDate fromMonth, LocalDate toMonth) {
+        return databaseClient.sql("""
+                INSERT INTO user_month_category_totals (user_id, month, category, total, payments)
+                SELECT s.user_id, CAST(m.month AS DATE), COALESCE(s.category, ''), SUM(s.price), COUNT(*)
+                FROM generate_series(CAST(:fromMonth AS DATE), CAST(:toMonth AS DATE), INTERVAL '1 month') AS m (month)
+                JOIN subscriptions s
+                    ON effective_payment_date(s.payment_date, s.renewal_months, CAST(m.month AS DATE))
+                    BETWEEN CAST(m.month AS DATE) AND CAST(m.month + INTERVAL '1 month' - INTERVAL '1 day' AS DATE)
+                GROUP BY s.user_id, m.month, COALESCE(s.category, '')
+                ON CONFLICT (user_id, month, category) DO UPDATE
+                SET total = user_month_category_totals.total + EXCLUDED.total,
+                    payments = user_month_category_totals.payments + EXCLUDED.payments
+                """)
+                .bind("fromMonth", fromMonth)
+                .bind("toMonth", toMonth)
+                .then();
+    }
+}
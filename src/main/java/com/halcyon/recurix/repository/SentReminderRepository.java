@@ -0,0 +1,68 @@
+package com.halcyon.recurix.repository;
+
+import java.time.LocalDate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Журнал отправленных напоминаний (таблица {@code sent_reminders}).
+ * <p>
+ * Напоминание о платеже может быть инициировано ежедневной задачей или планировщиком
+ * сроков на любом экземпляре; отправляет его только тот, кто первым захватил запись.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SentReminderRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Захватывает право отправить напоминание о платеже.
+     *
+     * @param subscriptionId ID подписки.
+     * @param paymentDate    Дата платежа, о котором напоминаем.
+     * @return {@code Mono} с {@code true}, если напоминание еще не отправлялось.
+     */
+    public Mono<Boolean> claim(long subscriptionId, LocalDate paymentDate) {
+        return databaseClient.sql("""
+                INSERT INTO sent_reminders (subscription_id, payment_date)
+                VALUES (:subscriptionId, :paymentDate)
+                ON CONFLICT DO NOTHING
+                """)
+                .bind("subscriptionId", subscriptionId)
+                .bind("paymentDate", paymentDate)
+                .fetch()
+                .rowsUpdated()
+                .map(updated -> updated > 0);
+    }
+
+    /**
+     * Освобождает захват, если отправить напоминание не удалось.
+     *
+     * @param subscriptionId ID подписки.
+     * @param paymentDate    Дата платежа.
+     * @return {@code Mono<Void>}, завершающийся после удаления.
+     */
+    public Mono<Void> release(long subscriptionId, LocalDate paymentDate) {
+        return databaseClient.sql("DELETE FROM sent_reminders WHERE subscription_id = :subscriptionId AND payment_date = :paymentDate")
+                .bind("subscriptionId", subscriptionId)
+                .bind("paymentDate", paymentDate)
+                .then();
+    }
+
+    /**
+     * Удаляет записи о платежах раньше {@code cutoff}: напоминания о них уже не отправляются,
+     * поэтому и защищать от повтора нечего.
+     *
+     * @param cutoff Первая дата платежа, записи о которой сохраняются.
+     * @return {@code Mono} с количеством удаленных записей.
+     */
+    public Mono<Long> deleteOlderThan(LocalDate cutoff) {
+        return databaseClient.sql("DELETE FROM sent_reminders WHERE payment_date < :cutoff")
+                .bind("cutoff", cutoff)
+                .fetch()
+                .rowsUpdated();
+    }
+}
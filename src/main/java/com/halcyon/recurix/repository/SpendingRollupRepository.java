@@ -0,0 +1,111 @@
+package com.halcyon.recurix.repository;
+
+import com.halcyon.recurix.dto.CategorySpendingDto;
+import com.halcyon.recurix.dto.RollupMonthDto;
+import com.halcyon.recurix.support.Money;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Отчеты по всем пользователям из материализованного представления {@code spending_rollup}.
+ * <p>
+ * Представление строится по месячным агрегатам и хранит строки на месяц, категорию и
+ * корзину пользователей ({@code user_id mod 32}), а также итоговые строки месяца по корзинам
+ * ({@code all_categories}). Пользователь попадает ровно в одну корзину, поэтому число
+ * пользователей складывается по корзинам без повторов. Запросы отчетов не касаются
+ * рабочих таблиц бота.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SpendingRollupRepository {
+
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('spending_rollup')) AS locked";
+    private static final String REFRESH = "REFRESH MATERIALIZED VIEW CONCURRENTLY spending_rollup";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Обновляет представление, не блокируя чтение.
+     * <p>
+     * Если обновление уже выполняет другой экземпляр, ничего не делает.
+     *
+     * @return {@code Mono} с {@code true}, если представление обновлено этим вызовом.
+     */
+    public Mono<Boolean> refresh() {
+        return databaseClient.sql(TRY_LOCK)
+                .map((row, metadata) -> row.get("locked", Boolean.class))
+                .one()
+                .flatMap(locked -> locked
+                        ? databaseClient.sql(REFRESH).then().thenReturn(true)
+                        : Mono.just(false))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Итоги по месяцам: число пользователей с платежами, платежей, сумма и среднее число
+     * подписок на пользователя.
+     *
+     * @param fromMonth Первый месяц.
+     * @param toMonth   Последний месяц включительно.
+     * @return {@code Flux} с итогами в порядке месяцев.
+     */
+    public Flux<RollupMonthDto> findMonthSummaries(YearMonth fromMonth, YearMonth toMonth) {
+        return databaseClient.sql("""
+                SELECT month, SUM(users) AS users, SUM(payments) AS payments, SUM(total) AS total
+                FROM spending_rollup
+                WHERE all_categories
+                AND month BETWEEN :fromMonth AND :toMonth
+                GROUP BY month
+                ORDER BY month
+                """)
+                .bind("fromMonth", fromMonth.atDay(1))
+                .bind("toMonth", toMonth.atDay(1))
+                .map((row, metadata) -> {
+                    long users = row.get("users", Long.class);
+                    long payments = row.get("payments", Long.class);
+
+                    return new RollupMonthDto(
+                            YearMonth.from(row.get("month", LocalDate.class)),
+                            users,
+                            payments,
+                            row.get("total", BigDecimal.class),
+                            users == 0
+                                    ? BigDecimal.ZERO
+                                    : BigDecimal.valueOf(payments).divide(BigDecimal.valueOf(users), 2, RoundingMode.HALF_UP));
+                })
+                .all();
+    }
+
+    /**
+     * Суммы по категориям за период, от большей к меньшей.
+     *
+     * @param fromMonth Первый месяц.
+     * @param toMonth   Последний месяц включительно.
+     * @return {@code Flux} с суммами; категория без названия возвращается как {@code null}.
+     */
+    public Flux<CategorySpendingDto> findCategoryTotals(YearMonth fromMonth, YearMonth toMonth) {
+        return databaseClient.sql("""
+                SELECT NULLIF(category, '') AS category, SUM(total) AS total
+                FROM spending_rollup
+                WHERE NOT all_categories
+                AND month BETWEEN :fromMonth AND :toMonth
+                GROUP BY category
+                ORDER BY total DESC
+                """)
+                .bind("fromMonth", fromMonth.atDay(1))
+                .bind("toMonth", toMonth.atDay(1))
+                .map((row, metadata) -> new CategorySpendingDto(
+                        row.get("category", String.class),
+                        Money.of(row.get("total", BigDecimal.class))))
+                .all();
+    }
+}
@@ -1,9 +1,9 @@
 package com.halcyon.recurix.repository;
 
-import com.halcyon.recurix.dto.CategorySpendingDto;
 import com.halcyon.recurix.dto.ReminderDto;
+import com.halcyon.recurix.dto.RenewedSubscriptionDto;
+import com.halcyon.recurix.dto.SubscriptionPageRowDto;
 import com.halcyon.recurix.model.Subscription;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -13,45 +13,234 @@ import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+/**
+ * Репозиторий подписок.
+ * <p>
+ * Хранимая {@code payment_date} — это опорная дата, которая может отставать от реальной.
+ * Запросы на чтение вычисляют ближайшую дату платежа на лету через SQL-функцию
+ * {@code effective_payment_date(payment_date, renewal_months, on_date)}.
+ */
 @Repository
 public interface SubscriptionRepository extends ReactiveCrudRepository<Subscription, Long> {
 
-    Flux<Subscription> findAllByUserId(Long userId, Pageable pageable);
+    /**
+     * Страница подписок по ближайшей дате платежа, выбранная по смещению. Каждая строка содержит
+     * общее количество подписок пользователя ({@code COUNT(*) OVER()} считается до {@code LIMIT}).
+     */
+    @Query("""
+        SELECT id, user_id, name, price,
+            effective_payment_date(payment_date, renewal_months, :today) AS payment_date,
+            renewal_months, category,
+            COUNT(*) OVER() AS total_count
+        FROM subscriptions
+        WHERE user_id = :userId
+        ORDER BY
+            CASE WHEN :ascending THEN effective_payment_date(payment_date, renewal_months, :today) END ASC,
+            CASE WHEN NOT :ascending THEN effective_payment_date(payment_date, renewal_months, :today) END DESC,
+            CASE WHEN :ascending THEN id END ASC,
+            CASE WHEN NOT :ascending THEN id END DESC
+        LIMIT :limit OFFSET :offset
+    """)
+    Flux<SubscriptionPageRowDto> findPageByUserIdOrderByEffectiveDate(Long userId, LocalDate today, boolean ascending, int limit, long offset);
 
-    Mono<Integer> countByUserId(Long userId);
+    /**
+     * Страница подписок по цене, выбранная по смещению, с общим количеством подписок в каждой строке.
+     */
+    @Query("""
+        SELECT *, COUNT(*) OVER() AS total_count
+        FROM subscriptions
+        WHERE user_id = :userId
+        ORDER BY
+            CASE WHEN :ascending THEN price END ASC,
+            CASE WHEN NOT :ascending THEN price END DESC,
+            CASE WHEN :ascending THEN id END ASC,
+            CASE WHEN NOT :ascending THEN id END DESC
+        LIMIT :limit OFFSET :offset
+    """)
+    Flux<SubscriptionPageRowDto> findPageByUserIdOrderByPrice(Long userId, boolean ascending, int limit, long offset);
 
-    Mono<Integer> countByUserIdAndPaymentDateBetween(Long userId, LocalDate startOfMonth, LocalDate endOfMonth);
+    /**
+     * Страница подписок по ближайшей дате платежа, следующая за строкой {@code (afterDate, afterId)}
+     * в порядке возрастания. Дата вычисляется, поэтому индекса по ней нет: по индексу {@code user_id}
+     * читаются все строки пользователя, а условие курсора и сортировка применяются к ним.
+     * Общее количество считается подзапросом: оконная функция посчитала бы только строки после курсора.
+     */
+    @Query("""
+        SELECT id, user_id, name, price,
+            effective_payment_date(payment_date, renewal_months, :today) AS payment_date,
+            renewal_months, category,
+            (SELECT COUNT(*) FROM subscriptions WHERE user_id = :userId) AS total_count
+        FROM subscriptions
+        WHERE user_id = :userId
+        AND (effective_payment_date(payment_date, renewal_months, :today), id) > (:afterDate, :afterId)
+        ORDER BY payment_date, id
+        LIMIT :limit
+    """)
+    Flux<SubscriptionPageRowDto> findPageByUserIdOrderByEffectiveDateAfter(Long userId, LocalDate today, LocalDate afterDate, long afterId, int limit);
 
-    Flux<Subscription> findAllByPaymentDateBefore(LocalDate date);
+    /**
+     * Страница подписок по ближайшей дате платежа, предшествующая строке {@code (beforeDate, beforeId)};
+     * строки возвращаются в порядке убывания.
+     */
+    @Query("""
+        SELECT id, user_id, name, price,
+            effective_payment_date(payment_date, renewal_months, :today) AS payment_date,
+            renewal_months, category,
+            (SELECT COUNT(*) FROM subscriptions WHERE user_id = :userId) AS total_count
+        FROM subscriptions
+        WHERE user_id = :userId
+        AND (effective_payment_date(payment_date, renewal_months, :today), id) < (:beforeDate, :beforeId)
+        ORDER BY payment_date DESC, id DESC
+        LIMIT :limit
+    """)
+    Flux<SubscriptionPageRowDto> findPageByUserIdOrderByEffectiveDateBefore(Long userId, LocalDate today, LocalDate beforeDate, long beforeId, int limit);
 
-    Mono<Subscription> findFirstByUserIdAndPaymentDateBetweenOrderByPriceDesc(Long userId, LocalDate startOfMonth, LocalDate endOfMonth);
+    /**
+     * Страница подписок по цене, следующая за строкой {@code (afterPrice, afterId)} в порядке возрастания.
+     * Читается диапазоном индекса {@code (user_id, price, id)} без пропуска предыдущих строк.
+     */
+    @Query("""
+        SELECT *, (SELECT COUNT(*) FROM subscriptions WHERE user_id = :userId) AS total_count
+        FROM subscriptions
+        WHERE user_id = :userId
+        AND (price, id) > (:afterPrice, :afterId)
+        ORDER BY price, id
+        LIMIT :limit
+    """)
+    Flux<SubscriptionPageRowDto> findPageByUserIdOrderByPriceAfter(Long userId, BigDecimal afterPrice, long afterId, int limit);
 
-    Mono<Subscription> findFirstByUserIdAndPaymentDateGreaterThanEqualOrderByPaymentDateAsc(Long userId, LocalDate fromDate);
+    /**
+     * Страница подписок по цене, предшествующая строке {@code (beforePrice, beforeId)};
+     * строки возвращаются в порядке убывания.
+     */
+    @Query("""
+        SELECT *, (SELECT COUNT(*) FROM subscriptions WHERE user_id = :userId) AS total_count
+        FROM subscriptions
+        WHERE user_id = :userId
+        AND (price, id) < (:beforePrice, :beforeId)
+        ORDER BY price DESC, id DESC
+        LIMIT :limit
+    """)
+    Flux<SubscriptionPageRowDto> findPageByUserIdOrderByPriceBefore(Long userId, BigDecimal beforePrice, long beforeId, int limit);
+
+    /**
+     * Подписки пользователя для снимка списка, не более {@code limit} строк.
+     */
+    @Query("SELECT * FROM subscriptions WHERE user_id = :userId ORDER BY id LIMIT :limit")
+    Flux<Subscription> findAllByUserIdLimited(Long userId, int limit);
+
+    Mono<Integer> countByUserId(Long userId);
+
+    @Query("SELECT * FROM subscriptions WHERE id = :subscriptionId FOR UPDATE")
+    Mono<Subscription> findByIdForUpdate(long subscriptionId);
+
+    @Query("DELETE FROM subscriptions WHERE id = :subscriptionId RETURNING *")
+    Mono<Subscription> deleteReturning(long subscriptionId);
+
+    /**
+     * Подписки одной партиции, по которым в {@code runDate} нужно отправить напоминание.
+     * <p>
+     * Ближайшая дата платежа зависит от даты запуска, поэтому индекс по ней построить нельзя.
+     * Кандидаты отбираются по дню месяца опорной даты через индекс
+     * {@code idx_subscriptions_payment_day}: точное совпадение дня и, если целевая дата —
+     * последний день месяца, опорные дни после него (31-е число в 30-дневном месяце).
+     * Условия разнесены по ветвям {@code UNION ALL}, чтобы каждая ветвь читала индекс
+     * отдельно; они не пересекаются, поэтому строки не дублируются.
+     */
+    @Query("""
+        WITH targets AS (
+            SELECT DISTINCT reminder_days_before,
+                CAST(:runDate AS DATE) + reminder_days_before AS target_date,
+                CAST(EXTRACT(DAY FROM CAST(:runDate AS DATE) + reminder_days_before) AS INTEGER) AS target_day
+            FROM user_settings
+            WHERE reminders_enabled = true
+        ),
+        candidates AS (
+            SELECT s.id, s.user_id, s.name, s.price, s.payment_date, s.category, s.renewal_months,
+                t.target_date, t.reminder_days_before
+            FROM targets t
+            JOIN subscriptions s
+                ON CAST(EXTRACT(DAY FROM s.payment_date) AS INTEGER) = t.target_day
+            WHERE mod(s.user_id, :partitionCount) = :partitionNumber
+            AND s.id > :afterId
+            UNION ALL
+            SELECT s.id, s.user_id, s.name, s.price, s.payment_date, s.category, s.renewal_months,
+                t.target_date, t.reminder_days_before
+            FROM targets t
+            JOIN subscriptions s
+                ON CAST(EXTRACT(DAY FROM s.payment_date) AS INTEGER) > t.target_day
+            WHERE CAST(EXTRACT(DAY FROM t.target_date + 1) AS INTEGER) = 1
+            AND mod(s.user_id, :partitionCount) = :partitionNumber
+            AND s.id > :afterId
+        )
+        SELECT c.id, c.user_id, c.name, c.price,
+            c.target_date AS payment_date, c.category, c.renewal_months, u.telegram_id
+        FROM candidates c
+        JOIN user_settings us
+            ON us.user_id = c.user_id
+            AND us.reminder_days_before = c.reminder_days_before
+        JOIN users u ON c.user_id = u.id
+        WHERE us.reminders_enabled = true
+        AND effective_payment_date(c.payment_date, c.renewal_months, c.target_date) = c.target_date
+        ORDER BY c.id
+    """)
+    Flux<ReminderDto> findAllForRemindingInPartition(LocalDate runDate, int partitionNumber, int partitionCount, long afterId);
 
     @Query("""
         SELECT s.id, s.user_id, s.name, s.price,
-            s.payment_date, s.category, s.renewal_months, u.telegram_id
+            CAST(:runDate AS DATE) + us.reminder_days_before AS payment_date,
+            s.category, s.renewal_months, u.telegram_id
         FROM subscriptions s
+        JOIN user_settings us ON us.user_id = s.user_id
         JOIN users u ON s.user_id = u.id
-        JOIN user_settings us ON u.id = us.user_id
-        WHERE us.reminders_enabled = true
-        AND s.payment_date = CURRENT_DATE + us.reminder_days_before
+        WHERE s.id = :subscriptionId
+        AND us.reminders_enabled = true
+        AND effective_payment_date(s.payment_date, s.renewal_months, CAST(:runDate AS DATE) + us.reminder_days_before)
+            = CAST(:runDate AS DATE) + us.reminder_days_before
     """)
-    Flux<ReminderDto> findAllForReminding();
+    Mono<ReminderDto> findForReminding(long subscriptionId, LocalDate runDate);
 
+    /**
+     * Сдвигает опорные даты платежей просроченных подписок одной партиции на ближайшую дату,
+     * не раньше {@code runDate}.
+     * <p>
+     * Количество пропущенных периодов вычисляется арифметически из {@code renewal_months},
+     * поэтому подписка, отставшая на несколько периодов, догоняется одним обновлением.
+     * За один вызов обновляется не более {@code chunkSize} подписок с ID больше {@code afterId}.
+     *
+     * @return {@code Flux} с ID обновленных подписок и их владельцев (в произвольном порядке).
+     */
     @Query("""
-        SELECT SUM(price) FROM subscriptions
-        WHERE user_id = :userId
-        AND payment_date BETWEEN :startOfMonth AND :endOfMonth
+        WITH due AS (
+            SELECT id
+            FROM subscriptions
+            WHERE payment_date < :runDate
+            AND renewal_months > 0
+            AND mod(user_id, :partitionCount) = :partitionNumber
+            AND id > :afterId
+            ORDER BY id
+            LIMIT :chunkSize
+        )
+        UPDATE subscriptions s
+        SET payment_date = effective_payment_date(s.payment_date, s.renewal_months, :runDate)
+        FROM due
+        WHERE s.id = due.id
+        RETURNING s.id, s.user_id
     """)
-    Mono<BigDecimal> calculateMonthlyTotal(Long userId, LocalDate startOfMonth, LocalDate endOfMonth);
+    Flux<RenewedSubscriptionDto> renewDueInPartition(LocalDate runDate, int partitionNumber, int partitionCount, long afterId, int chunkSize);
 
+    /**
+     * Продлевает одну подписку, если ее опорная дата раньше {@code runDate}.
+     *
+     * @return {@code Mono} с ID владельца продленной подписки или пустой, если продлевать было нечего.
+     */
     @Query("""
-        SELECT category, SUM(price) as total FROM subscriptions
-        WHERE user_id = :userId
-        AND payment_date BETWEEN :startOfMonth AND :endOfMonth
-        GROUP BY category
-        ORDER BY total DESC
+        UPDATE subscriptions
+        SET payment_date = effective_payment_date(payment_date, renewal_months, :runDate)
+        WHERE id = :subscriptionId
+        AND payment_date < :runDate
+        AND renewal_months > 0
+        RETURNING user_id
     """)
-    Flux<CategorySpendingDto> findSpendingByCategory(Long userId, LocalDate startOfMonth, LocalDate endOfMonth);
+    Mono<Long> renewById(long subscriptionId, LocalDate runDate);
 }
@@ -0,0 +1,92 @@
+package com.halcyon.recurix.repository.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Реплика для чтения и ее состояние.
+ * <p>
+ * Раз в {@code recurix.r2dbc.replica.check-interval} запрашивает у реплики отставание
+ * применения WAL. Реплика считается доступной, пока запрос проходит, а отставание не больше
+ * {@code recurix.r2dbc.replica.max-lag}; иначе чтения уходят на основную БД до следующей
+ * успешной проверки.
+ * <p>
+ * Доступность и отставание экспортируются метриками {@code recurix.r2dbc.replica.available}
+ * и {@code recurix.r2dbc.replica.lag}.
+ */
+@Slf4j
+public class ReadReplica {
+
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) AS DOUBLE PRECISION), 0)
+            END AS lag_seconds
+            """;
+
+    @Getter
+    private final ConnectionFactory connectionFactory;
+    @Getter
+    private final Duration maxLag;
+    private final DatabaseClient databaseClient;
+
+    private volatile boolean available;
+    private volatile double lagSeconds;
+
+    public ReadReplica(ConnectionFactory connectionFactory, Duration maxLag, MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.maxLag = maxLag;
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+
+        Gauge.builder("recurix.r2dbc.replica.available", this, replica -> replica.isAvailable() ? 1 : 0)
+                .description("Whether read-only queries are routed to the replica")
+                .register(meterRegistry);
+        Gauge.builder("recurix.r2dbc.replica.lag", this, replica -> replica.lagSeconds)
+                .description("Replication lag of the read replica")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code true}, если чтения можно направлять на реплику.
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Исключает реплику из маршрутизации до следующей успешной проверки.
+     *
+     * @param cause Ошибка обращения к реплике.
+     */
+    public void markUnavailable(Throwable cause) {
+        if (available) {
+            log.warn("Read replica is unavailable, routing reads to the primary: {}", cause.toString());
+        }
+        available = false;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${recurix.r2dbc.replica.check-interval:PT10S}",
+            initialDelay = 0)
+    public void check() {
+        databaseClient.sql(LAG_QUERY)
+                .map((row, metadata) -> row.get("lag_seconds", Double.class))
+                .one()
+                .timeout(maxLag)
+                .subscribe(lag -> {
+                    lagSeconds = lag;
+                    boolean healthy = lag <= maxLag.toSeconds();
+                    if (healthy != available) {
+                        log.info("Read replica is {} (lag {} s)", healthy ? "available" : "lagging", lag);
+                    }
+                    available = healthy;
+                }, this::markUnavailable);
+    }
+}
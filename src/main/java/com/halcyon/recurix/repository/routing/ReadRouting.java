@@ -0,0 +1,117 @@
+package com.halcyon.recurix.repository.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.halcyon.recurix.event.SubscriptionDeletedEvent;
+import com.halcyon.recurix.event.SubscriptionSavedEvent;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Направляет запросы только на чтение на реплику, если она настроена
+ * ({@code recurix.r2dbc.replica.url}).
+ * <p>
+ * Запрос, обернутый в {@link #read}, выполняется на реплике, пока она доступна и не отстает.
+ * Если соединение с репликой не удалось до получения первой строки, запрос повторяется
+ * на основной БД, а реплика исключается из маршрутизации до следующей проверки.
+ * <p>
+ * Чтобы пользователь сразу видел свои изменения, его запросы ({@link #readFor}) в течение
+ * {@code recurix.r2dbc.replica.max-lag} после изменения подписок идут на основную БД.
+ * Без реплики все методы возвращают запрос без изменений.
+ */
+@Component
+public class ReadRouting {
+
+    /**
+     * Ключ контекста Reactor и ключ фабрики соединений реплики.
+     */
+    static final String REPLICA = "replica";
+
+    private final ReadReplica replica;
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadRouting(ObjectProvider<ReadReplica> replica) {
+        this.replica = replica.getIfAvailable();
+        this.recentWriters = this.replica == null
+                ? null
+                : Caffeine.newBuilder()
+                        .expireAfterWrite(this.replica.getMaxLag())
+                        .build();
+    }
+
+    public <T> Mono<T> read(Mono<T> query) {
+        if (replica == null) {
+            return query;
+        }
+
+        return query.contextWrite(context -> context.put(REPLICA, true))
+                .onErrorResume(this::isUnavailable, e -> {
+                    replica.markUnavailable(e);
+                    return query;
+                });
+    }
+
+    public <T> Flux<T> read(Flux<T> query) {
+        if (replica == null) {
+            return query;
+        }
+
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+
+            return query.doOnNext(value -> emitted.set(true))
+                    .contextWrite(context -> context.put(REPLICA, true))
+                    .onErrorResume(e -> !emitted.get() && isUnavailable(e), e -> {
+                        replica.markUnavailable(e);
+                        return query;
+                    });
+        });
+    }
+
+    /**
+     * Как {@link #read(Mono)}, но недавно изменявший данные пользователь читает с основной БД.
+     */
+    public <T> Mono<T> readFor(Long userId, Mono<T> query) {
+        return wroteRecently(userId) ? query : read(query);
+    }
+
+    /**
+     * Как {@link #read(Flux)}, но недавно изменявший данные пользователь читает с основной БД.
+     */
+    public <T> Flux<T> readFor(Long userId, Flux<T> query) {
+        return wroteRecently(userId) ? query : read(query);
+    }
+
+    @EventListener
+    public void onSaved(SubscriptionSavedEvent event) {
+        rememberWriter(event.subscription().getUserId());
+    }
+
+    @EventListener
+    public void onDeleted(SubscriptionDeletedEvent event) {
+        rememberWriter(event.userId());
+    }
+
+    private void rememberWriter(Long userId) {
+        if (recentWriters != null && userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    private boolean wroteRecently(Long userId) {
+        return recentWriters != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private boolean isUnavailable(Throwable e) {
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof R2dbcNonTransientResourceException
+                || e instanceof R2dbcTransientResourceException;
+    }
+}
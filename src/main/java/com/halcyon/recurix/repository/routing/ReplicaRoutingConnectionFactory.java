@@ -0,0 +1,30 @@
+package com.halcyon.recurix.repository.routing;
+
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.Map;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Фабрика соединений, выбирающая реплику для запросов, помеченных {@link ReadRouting},
+ * и основную БД для всех остальных. Пока реплика недоступна, все запросы идут на основную БД.
+ */
+public class ReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    private final ReadReplica replica;
+
+    public ReplicaRoutingConnectionFactory(ConnectionFactory primary, ReadReplica replica) {
+        this.replica = replica;
+
+        setTargetConnectionFactories(Map.of(ReadRouting.REPLICA, replica.getConnectionFactory()));
+        setDefaultTargetConnectionFactory(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> context.hasKey(ReadRouting.REPLICA) && replica.isAvailable()
+                ? Mono.just(ReadRouting.REPLICA)
+                : Mono.empty());
+    }
+}
@@ -1,73 +1,78 @@
 package com.halcyon.recurix.service;
 
+import com.halcyon.recurix.cache.AnalyticsCache;
+import com.halcyon.recurix.cache.UserDataVersions;
 import com.halcyon.recurix.dto.AnalyticsDto;
+import com.halcyon.recurix.dto.YearAnalyticsDto;
 import com.halcyon.recurix.model.RecurixUser;
-import com.halcyon.recurix.model.Subscription;
-import com.halcyon.recurix.repository.SubscriptionRepository;
+import com.halcyon.recurix.repository.AnalyticsRepository;
+import com.halcyon.recurix.repository.routing.ReadRouting;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple5;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.time.Year;
 import java.time.YearMonth;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
 
-    private final SubscriptionRepository subscriptionRepository;
+    private final AnalyticsRepository analyticsRepository;
+    private final AnalyticsCache analyticsCache;
+    private final UserDataVersions dataVersions;
+    private final SpendingAggregatesService spendingAggregates;
+    private final ReadRouting readRouting;
 
     /**
      * Собирает полную аналитическую сводку для пользователя за указанный месяц.
+     * <p>
+     * Подписка попадает в месяц, если ее ближайшая дата платежа, вычисленная от начала
+     * месяца по периоду продления, приходится на этот месяц. Вся сводка собирается
+     * одним запросом к БД и кэшируется до следующего изменения подписок пользователя.
+     * Сводка для кэша читается с основной БД: отстающая реплика могла бы вернуть данные
+     * до изменения, и они остались бы в кэше под новой версией до истечения TTL.
+     * <p>
+     * Источник полей зависит от того, покрыт ли месяц агрегатами:
+     * <ul>
+     *   <li>количество, сумма и категории — из {@code user_month_category_totals}, если месяц покрыт,
+     *   иначе из подписок. Агрегаты сохраняют уже учтенные платежи месяца и после того, как
+     *   продление сдвинуло опорную дату дальше; по подпискам такие платежи не видны. Подписки
+     *   читаются только для месяцев за границей покрытия, то есть позже любой сдвинутой опорной
+     *   даты, поэтому там оба источника совпадают;</li>
+     *   <li>самая дорогая подписка и ближайший платеж — всегда из подписок, по ближайшей дате
+     *   платежа от начала месяца. Поэтому в месяце, платежи которого учтены до продления,
+     *   самой дорогой подписки может не быть, хотя сумма не нулевая.</li>
+     * </ul>
      *
      * @param user      Пользователь, для которого собирается статистика.
      * @param yearMonth Месяц и год, для которого собирается статистика.
      * @return {@code Mono} с {@link AnalyticsDto}, содержащим всю информацию.
      */
     public Mono<AnalyticsDto> getAnalyticsForMonth(RecurixUser user, YearMonth yearMonth) {
-        LocalDate startOfMonth = yearMonth.atDay(1);
-        LocalDate endOfMonth = yearMonth.atEndOfMonth();
-
-        Mono<Integer> totalSubscriptionsMono = subscriptionRepository.countByUserIdAndPaymentDateBetween(user.id(), startOfMonth, endOfMonth)
-                .defaultIfEmpty(0);
-        Mono<BigDecimal> monthlyTotalMono = subscriptionRepository.calculateMonthlyTotal(user.id(), startOfMonth, endOfMonth)
-                .defaultIfEmpty(BigDecimal.ZERO);
-        Mono<AnalyticsDto.AnalyticsDtoBuilder> spendingByCategoryMono = subscriptionRepository.findSpendingByCategory(user.id(), startOfMonth, endOfMonth)
-                .collectList()
-                .map(list -> AnalyticsDto.builder().spendingByCategory(list));
-        Mono<Optional<Subscription>> mostExpensiveMono = subscriptionRepository
-                .findFirstByUserIdAndPaymentDateBetweenOrderByPriceDesc(user.id(), startOfMonth, endOfMonth)
-                .map(Optional::of)
-                .defaultIfEmpty(Optional.empty());
-        Mono<Optional<Subscription>> nextPaymentMono = subscriptionRepository
-                .findFirstByUserIdAndPaymentDateGreaterThanEqualOrderByPaymentDateAsc(user.id(), startOfMonth)
-                .map(Optional::of)
-                .defaultIfEmpty(Optional.empty());
-
-        return Mono.zip(
-                totalSubscriptionsMono,
-                monthlyTotalMono,
-                spendingByCategoryMono,
-                mostExpensiveMono,
-                nextPaymentMono
-        ).map(this::buildAnalyticsDtoFromTuple);
+        return dataVersions.current(user.id())
+                .flatMap(version -> analyticsCache.get(user.id(), yearMonth, version,
+                        () -> spendingAggregates.covers(yearMonth)
+                                .flatMap(covered -> covered
+                                        ? analyticsRepository.findAggregatedMonthAnalytics(user.id(), yearMonth.atDay(1), yearMonth.atEndOfMonth())
+                                        : analyticsRepository.findMonthAnalytics(user.id(), yearMonth.atDay(1), yearMonth.atEndOfMonth()))));
     }
 
     /**
-     * Собирает финальный DTO из результатов параллельных запросов.
+     * Собирает годовую сводку для пользователя: суммы по месяцам, по категориям и за год.
+     * <p>
+     * Если весь год покрыт месячными агрегатами, сводка читается из них; иначе регулярные
+     * подписки разворачиваются в платежи года по периоду продления на стороне БД.
+     * В обоих случаях это один запрос, а не двенадцать месячных.
      *
-     * @param tuple Кортеж с результатами всех Mono.
-     * @return Финальный {@link AnalyticsDto}.
+     * @param user Пользователь, для которого собирается статистика.
+     * @param year Год, за который собирается статистика.
+     * @return {@code Mono} с {@link YearAnalyticsDto}.
      */
-    private AnalyticsDto buildAnalyticsDtoFromTuple(Tuple5<Integer, BigDecimal, AnalyticsDto.AnalyticsDtoBuilder, Optional<Subscription>, Optional<Subscription>> tuple) {
-        return tuple.getT3()
-                .totalSubscriptions(tuple.getT1())
-                .monthlyTotal(tuple.getT2())
-                .mostExpensive(tuple.getT4().orElse(null))
-                .nextPayment(tuple.getT5().orElse(null))
-                .build();
+    public Mono<YearAnalyticsDto> getAnalyticsForYear(RecurixUser user, Year year) {
+        return spendingAggregates.covers(year.atMonth(12))
+                .flatMap(covered -> readRouting.readFor(user.id(), covered
+                        ? analyticsRepository.findAggregatedYearAnalytics(user.id(), year)
+                        : analyticsRepository.findYearAnalytics(user.id(), year)));
     }
 }
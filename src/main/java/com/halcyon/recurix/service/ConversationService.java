@@ -1,7 +1,7 @@
 package com.halcyon.recurix.service;
 
-import com.halcyon.recurix.handler.ConversationState;
 import com.halcyon.recurix.handler.ConversationStepHandler;
+import com.halcyon.recurix.service.context.Conversation;
 import java.io.Serializable;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -25,16 +25,17 @@ public class ConversationService {
             return Mono.empty();
         }
 
-        return stateService.getState(update.getMessage().getFrom().getId())
-                .flatMap(state -> findAndExecuteHandler(state, update));
+        return stateService.getConversation(update.getMessage().getFrom().getId())
+                .filter(conversation -> conversation.state() != null)
+                .flatMap(conversation -> findAndExecuteHandler(conversation, update));
     }
 
-    private Mono<BotApiMethod<? extends Serializable>> findAndExecuteHandler(ConversationState state, Update update) {
-        log.debug("Finding handler for state: {}", state);
+    private Mono<BotApiMethod<? extends Serializable>> findAndExecuteHandler(Conversation conversation, Update update) {
+        log.debug("Finding handler for state: {}", conversation.state());
 
         return Flux.fromIterable(stepHandlers)
-                .filter(handler -> handler.supports(state))
+                .filter(handler -> handler.supports(conversation.state()))
                 .next()
-                .flatMap(handler -> handler.execute(update));
+                .flatMap(handler -> handler.execute(update, conversation));
     }
 }
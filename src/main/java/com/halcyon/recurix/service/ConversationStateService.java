@@ -1,94 +1,183 @@
 package com.halcyon.recurix.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.halcyon.recurix.handler.ConversationState;
+import com.halcyon.recurix.service.context.Conversation;
+import com.halcyon.recurix.service.context.SubscriptionContext;
 import com.halcyon.recurix.service.context.SubscriptionListContext;
-import java.time.Duration;
-import lombok.RequiredArgsConstructor;
+import com.halcyon.recurix.service.store.ConversationFields;
+import com.halcyon.recurix.service.store.ConversationStateStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+/**
+ * Состояние диалога пользователя: текущий шаг, контекст подписки и контекст списка.
+ * <p>
+ * Сервис кодирует и декодирует части диалога, а хранит их {@link ConversationStateStore}
+ * (Redis или память процесса). Каждое поле кодируется своим типизированным
+ * сериализатором; поле, которое не удалось декодировать (например, записанное
+ * в старом формате), считается отсутствующим.
+ * <p>
+ * Размер записываемых полей экспортируется сводкой {@code recurix.conversations.field.size}
+ * с тегом {@code field}; сумма средних по полям — память, которую занимает один активный диалог.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ConversationStateService {
 
-    private final ReactiveRedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final ConversationStateStore store;
+    private final RedisSerializer<ConversationState> stateSerializer;
+    private final RedisSerializer<SubscriptionContext> contextSerializer;
+    private final RedisSerializer<SubscriptionListContext> listContextSerializer;
+    private final Map<String, DistributionSummary> fieldSizes = new HashMap<>();
+
+    public ConversationStateService(
+            ConversationStateStore store,
+            RedisSerializer<ConversationState> stateSerializer,
+            RedisSerializer<SubscriptionContext> contextSerializer,
+            RedisSerializer<SubscriptionListContext> listContextSerializer,
+            MeterRegistry meterRegistry
+    ) {
+        this.store = store;
+        this.stateSerializer = stateSerializer;
+        this.contextSerializer = contextSerializer;
+        this.listContextSerializer = listContextSerializer;
+
+        for (String field : List.of(ConversationFields.STATE, ConversationFields.CONTEXT, ConversationFields.LIST_CONTEXT)) {
+            fieldSizes.put(field, DistributionSummary.builder("recurix.conversations.field.size")
+                    .description("Encoded size of a conversation hash field")
+                    .baseUnit("bytes")
+                    .tag("field", field)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Читает все части диалога за одно обращение к хранилищу.
+     *
+     * @param userId ID пользователя.
+     * @return {@code Mono} с данными диалога или пустой {@code Mono}, если диалога нет.
+     */
+    public Mono<Conversation> getConversation(Long userId) {
+        return store.load(userId)
+                .map(fields -> new Conversation(
+                        decode(stateSerializer, userId, ConversationFields.STATE, fields.state()),
+                        decode(contextSerializer, userId, ConversationFields.CONTEXT, fields.context()),
+                        decode(listContextSerializer, userId, ConversationFields.LIST_CONTEXT, fields.listContext())))
+                .filter(conversation -> conversation.state() != null
+                        || conversation.context() != null
+                        || conversation.listContext() != null)
+                .doOnNext(conversation -> log.debug("Fetched conversation = {} for user = {}", conversation, userId));
+    }
 
-    private static final Duration STATE_TTL = Duration.ofHours(1);
+    public Mono<ConversationState> getState(Long userId) {
+        return fetch(stateSerializer, userId, ConversationFields.STATE, ConversationFields::state);
+    }
 
     public Mono<Void> setState(Long userId, ConversationState state) {
-        return redisTemplate.opsForValue()
-                .set(stateKey(userId), state, STATE_TTL)
-                .then();
+        return put(userId, ConversationFields.STATE, stateSerializer.serialize(state));
     }
 
-    private String stateKey(Long userId) {
-        return "state:" + userId;
+    public Mono<SubscriptionContext> getContext(Long userId) {
+        return fetch(contextSerializer, userId, ConversationFields.CONTEXT, ConversationFields::context);
     }
 
-    public Mono<ConversationState> getState(Long userId) {
-        return fetch(stateKey(userId), ConversationState.class);
+    public Mono<Void> setContext(Long userId, SubscriptionContext context) {
+        return put(userId, ConversationFields.CONTEXT, contextSerializer.serialize(context));
     }
 
-    private <T> Mono<T> fetch(String key, Class<T> targetClass) {
-        return redisTemplate.opsForValue()
-                .get(key)
-                .doOnNext(value -> log.info("Fetched value = {} for key = {}", value, key))
-                .map(value -> objectMapper.convertValue(value, targetClass))
-                .doOnSuccess(value -> {
-                    if (value == null) {
-                        log.info("No cached value found for key = {}", key);
+    /**
+     * Атомарно сохраняет контекст и переводит диалог на следующий шаг, если текущий шаг
+     * все еще равен ожидаемому. В Redis выполняется одним Lua-скриптом за один запрос.
+     *
+     * @param userId   ID пользователя.
+     * @param expected Шаг, на котором пользователь находился при чтении контекста.
+     * @param context  Новый контекст.
+     * @param next     Следующий шаг или {@code null}, чтобы выйти из режима ввода.
+     * @return {@code Mono} с {@code true}, если переход выполнен, и {@code false}, если
+     *         диалог уже перешел на другой шаг (например, из другого окна или экземпляра).
+     */
+    public Mono<Boolean> transition(Long userId, ConversationState expected, SubscriptionContext context, ConversationState next) {
+        byte[] contextBytes = contextSerializer.serialize(context);
+        fieldSizes.get(ConversationFields.CONTEXT).record(contextBytes.length);
+
+        return store.transition(
+                userId,
+                expected == null ? null : stateSerializer.serialize(expected),
+                contextBytes,
+                next == null ? null : stateSerializer.serialize(next))
+                .doOnNext(applied -> {
+                    if (!applied) {
+                        log.info("Conversation of user {} is no longer in state {}, transition skipped", userId, expected);
                     }
                 });
     }
 
-    public <T> Mono<T> getContext(Long userId, Class<T> type) {
-        return fetch(contextKey(userId), type);
-    }
-
-    public Mono<Void> setContext(Long userId, Object context) {
-        return redisTemplate.opsForValue()
-                .set(contextKey(userId), context, STATE_TTL)
-                .then();
+    public Mono<SubscriptionListContext> getListContext(Long userId) {
+        return fetch(listContextSerializer, userId, ConversationFields.LIST_CONTEXT, ConversationFields::listContext);
     }
 
-    private String contextKey(Long userId) {
-        return "context:" + userId;
+    public Mono<Void> setListContext(Long userId, SubscriptionListContext context) {
+        return put(userId, ConversationFields.LIST_CONTEXT, listContextSerializer.serialize(context));
     }
 
     public Mono<Void> clearState(Long userId) {
-        return redisTemplate.delete(stateKey(userId)).then();
+        return store.remove(userId, ConversationFields.STATE);
     }
 
     public Mono<Void> clearContext(Long userId) {
-        return redisTemplate.delete(contextKey(userId)).then();
+        return store.remove(userId, ConversationFields.CONTEXT);
     }
 
-    public Mono<Void> endConversation(Long userId) {
-        return clearState(userId)
-                .then(clearContext(userId))
-                .then(clearListContext(userId));
+    public Mono<Void> clearListContext(Long userId) {
+        return store.remove(userId, ConversationFields.LIST_CONTEXT);
     }
 
-    public Mono<Void> setListContext(Long userId, SubscriptionListContext context) {
-        return redisTemplate.opsForValue()
-                .set(listContextKey(userId), context, STATE_TTL)
-                .then();
+    /**
+     * Удаляет диалог целиком за одно обращение к хранилищу.
+     */
+    public Mono<Void> endConversation(Long userId) {
+        return store.delete(userId);
     }
 
-    private String listContextKey(Long userId) {
-        return "list_context:" + userId;
+    private Mono<Void> put(Long userId, String field, byte[] bytes) {
+        fieldSizes.get(field).record(bytes.length);
+        return store.put(userId, Map.of(field, bytes));
     }
 
-    public Mono<SubscriptionListContext> getListContext(Long userId) {
-        return fetch(listContextKey(userId), SubscriptionListContext.class);
+    private <T> Mono<T> fetch(
+            RedisSerializer<T> serializer,
+            Long userId,
+            String field,
+            Function<ConversationFields, byte[]> extractor) {
+        return store.load(userId)
+                .mapNotNull(fields -> decode(serializer, userId, field, extractor.apply(fields)))
+                .doOnNext(value -> log.debug("Fetched value = {} for user = {}, field = {}", value, userId, field))
+                .doOnSuccess(value -> {
+                    if (value == null) {
+                        log.debug("No cached value found for user = {}, field = {}", userId, field);
+                    }
+                });
     }
 
-    public Mono<Void> clearListContext(Long userId) {
-        return redisTemplate.delete(listContextKey(userId)).then();
+    private <T> T decode(RedisSerializer<T> serializer, Long userId, String field, byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        try {
+            return serializer.deserialize(bytes);
+        } catch (SerializationException | IllegalArgumentException e) {
+            log.warn("Discarding undecodable value for user = {}, field = {}: {}", userId, field, e.getMessage());
+            return null;
+        }
     }
 }
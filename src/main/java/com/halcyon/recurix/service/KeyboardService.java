@@ -4,6 +4,7 @@ import com.halcyon.recurix.model.Subscription;
 import com.halcyon.recurix.model.UserSettings;
 import com.halcyon.recurix.service.context.SubscriptionListContext;
 import com.halcyon.recurix.service.pagination.Page;
+import com.halcyon.recurix.service.pagination.PageCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
@@ -11,6 +12,7 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMa
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 
 import java.time.LocalDate;
+import java.time.Year;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
@@ -336,7 +338,7 @@ public class KeyboardService {
         var keyboardBuilder = InlineKeyboardMarkup.builder();
 
         if (page.totalPages() > 1) {
-            keyboardBuilder.keyboardRow(createNavigationRow(page));
+            keyboardBuilder.keyboardRow(createNavigationRow(page, context));
         }
 
         keyboardBuilder.keyboardRow(createSortingRow(page.currentPage(), context));
@@ -347,19 +349,35 @@ public class KeyboardService {
 
     /**
      * Создает ряд кнопок для пагинации ("назад", "номер страницы", "вперед").
+     * <p>
+     * Кнопки "назад" и "вперед" содержат {@link PageCursor} от первой и последней строки
+     * страницы, поэтому соседняя страница читается по ключу, а не по смещению.
      *
-     * @param page Объект страницы для получения информации о текущей странице и общем количестве
-     *             страниц.
+     * @param page    Объект страницы для получения информации о текущей странице и общем количестве
+     *                страниц.
+     * @param context Сортировка, с которой построена страница.
      * @return Список {@link InlineKeyboardButton}, представляющий ряд пагинации.
      */
-    private List<InlineKeyboardButton> createNavigationRow(Page<Subscription> page) {
+    private List<InlineKeyboardButton> createNavigationRow(Page<Subscription> page, SubscriptionListContext context) {
         int currentPage = page.currentPage();
+        List<Subscription> content = page.content();
+
+        String backData = IGNORE;
+        if (currentPage > 0) {
+            backData = content.isEmpty()
+                    ? SUB_LIST_PAGE_PREFIX + (currentPage - 1)
+                    : SUB_LIST_PAGE_PREFIX + PageCursor.before(context, currentPage - 1, content.get(0)).encode();
+        }
+
+        String forwardData = IGNORE;
+        if (currentPage < page.totalPages() - 1 && !content.isEmpty()) {
+            forwardData = SUB_LIST_PAGE_PREFIX
+                    + PageCursor.after(context, currentPage + 1, content.get(content.size() - 1)).encode();
+        }
 
         var backButton = InlineKeyboardButton.builder()
                 .text("⬅️")
-                .callbackData(currentPage > 0
-                        ? SUB_LIST_PAGE_PREFIX + (currentPage - 1)
-                        : IGNORE)
+                .callbackData(backData)
                 .build();
 
         var pageIndicatorButton = InlineKeyboardButton.builder()
@@ -369,9 +387,7 @@ public class KeyboardService {
 
         var forwardButton = InlineKeyboardButton.builder()
                 .text("➡️")
-                .callbackData(currentPage < page.totalPages() - 1
-                        ? SUB_LIST_PAGE_PREFIX + (currentPage + 1)
-                        : IGNORE)
+                .callbackData(forwardData)
                 .build();
 
         return List.of(backButton, pageIndicatorButton, forwardButton);
@@ -580,15 +596,56 @@ public class KeyboardService {
                 .callbackData(ANALYTICS_NAV_PREFIX + nextMonth)
                 .build();
 
-        // TODO: Добавить логику для кнопки "За весь год"
         var byYearButton = InlineKeyboardButton.builder()
                 .text(messageService.getMessage("analytics.button.by_year"))
                 .callbackData(ANALYTICS_BY_YEAR)
                 .build();
 
+        var chartButton = InlineKeyboardButton.builder()
+                .text(messageService.getMessage("analytics.button.chart"))
+                .callbackData(ANALYTICS_CHART_MONTH_PREFIX + yearMonth)
+                .build();
+
         return InlineKeyboardMarkup.builder()
                 .keyboardRow(List.of(prevButton, thisMonthButton, nextButton))
-                .keyboardRow(List.of(byYearButton))
+                .keyboardRow(List.of(byYearButton, chartButton))
+                .keyboardRow(List.of(getMenuButton()))
+                .build();
+    }
+
+    /**
+     * Создает клавиатуру для экрана годовой аналитики с навигацией по годам.
+     *
+     * @param year Отображаемый год.
+     * @return Готовый объект {@link InlineKeyboardMarkup}.
+     */
+    public InlineKeyboardMarkup getYearAnalyticsKeyboard(Year year) {
+        Year prevYear = year.minusYears(1);
+        Year nextYear = year.plusYears(1);
+
+        var prevButton = InlineKeyboardButton.builder()
+                .text("⬅️ " + prevYear.getValue())
+                .callbackData(ANALYTICS_YEAR_NAV_PREFIX + prevYear.getValue())
+                .build();
+
+        var byMonthButton = InlineKeyboardButton.builder()
+                .text(messageService.getMessage("analytics.button.by_month"))
+                .callbackData(MENU_ANALYTICS)
+                .build();
+
+        var nextButton = InlineKeyboardButton.builder()
+                .text(nextYear.getValue() + " ➡️")
+                .callbackData(ANALYTICS_YEAR_NAV_PREFIX + nextYear.getValue())
+                .build();
+
+        var chartButton = InlineKeyboardButton.builder()
+                .text(messageService.getMessage("analytics.button.chart"))
+                .callbackData(ANALYTICS_CHART_YEAR_PREFIX + year.getValue())
+                .build();
+
+        return InlineKeyboardMarkup.builder()
+                .keyboardRow(List.of(prevButton, byMonthButton, nextButton))
+                .keyboardRow(List.of(chartButton))
                 .keyboardRow(List.of(getMenuButton()))
                 .build();
     }
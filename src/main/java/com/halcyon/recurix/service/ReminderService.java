@@ -1,9 +1,16 @@
 package com.halcyon.recurix.service;
 
 import com.halcyon.recurix.RecurixBot;
+import com.halcyon.recurix.config.JobProperties;
 import com.halcyon.recurix.dto.ReminderDto;
+import com.halcyon.recurix.job.JobPartition;
+import com.halcyon.recurix.job.PartitionedJob;
+import com.halcyon.recurix.job.PartitionedJobRunner;
+import com.halcyon.recurix.repository.SentReminderRepository;
 import com.halcyon.recurix.repository.SubscriptionRepository;
+import com.halcyon.recurix.repository.routing.ReadRouting;
 import com.halcyon.recurix.support.PayloadEncoder;
+import java.time.LocalDate;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,6 +18,7 @@ import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.methods.ParseMode;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
@@ -18,47 +26,142 @@ import reactor.core.scheduler.Schedulers;
  * Сервис для фоновой рассылки напоминаний о подписках.
  * <p>
  * Ежедневно находит подписки с подходящей датой платежа
- * и отправляет уведомления пользователям
+ * и отправляет уведомления пользователям. Работа делится на партиции
+ * и распределяется между экземплярами через {@link PartitionedJobRunner}.
+ * <p>
+ * Перед отправкой напоминание захватывается в журнале {@code sent_reminders},
+ * поэтому ежедневная задача и планировщик сроков не отправляют его дважды.
+ * Записи журнала хранятся, пока напоминание о платеже еще может быть отправлено,
+ * в том числе догоняющим запуском, и затем удаляются раз в сутки.
  */
 @Service
 @Slf4j
-public class ReminderService {
+public class ReminderService implements PartitionedJob {
+
+    private static final String JOB_NAME = "reminders";
+    private static final String CRON = "0 0 9 * * *";
+    private static final String RETENTION_CRON = "0 30 0 * * *";
+    private static final int SEND_CONCURRENCY = 8;
 
     private final SubscriptionRepository subscriptionRepository;
+    private final SentReminderRepository sentReminderRepository;
     private final LocalMessageService messageService;
     private final RecurixBot recurixBot;
     private final PayloadEncoder payloadEncoder;
+    private final PartitionedJobRunner jobRunner;
+    private final ReadRouting readRouting;
+    private final JobProperties jobProperties;
 
     public ReminderService(
             SubscriptionRepository subscriptionRepository,
+            SentReminderRepository sentReminderRepository,
             LocalMessageService messageService,
             @Lazy RecurixBot recurixBot,
-            PayloadEncoder payloadEncoder
+            PayloadEncoder payloadEncoder,
+            PartitionedJobRunner jobRunner,
+            ReadRouting readRouting,
+            JobProperties jobProperties
     ) {
         this.subscriptionRepository = subscriptionRepository;
+        this.sentReminderRepository = sentReminderRepository;
         this.messageService = messageService;
         this.recurixBot = recurixBot;
         this.payloadEncoder = payloadEncoder;
+        this.jobRunner = jobRunner;
+        this.readRouting = readRouting;
+        this.jobProperties = jobProperties;
     }
 
     /**
      * Запускается каждый день в 9:00 по московскому времени для отправки напоминаний.
      */
-    @Scheduled(cron = "0 0 9 * * *", zone = "Europe/Moscow")
+    @Scheduled(cron = CRON, zone = "Europe/Moscow")
     public void sendDailyReminders() {
         log.info("SCHEDULER: Starting daily reminder task...");
 
-        subscriptionRepository.findAllForReminding()
-                .parallel()
-                .runOn(Schedulers.parallel())
-                .flatMap(this::sendReminderMessage)
-                .sequential()
-                .count()
+        jobRunner.run(this, LocalDate.now(PartitionedJobRunner.ZONE))
                 .doOnSuccess(count -> log.info("SCHEDULER: Daily reminder task finished. Processed {} reminders.", count))
                 .doOnError(e -> log.error("SCHEDULER: A critical error occurred during the reminder task.", e))
                 .subscribe();
     }
 
+    /**
+     * Запускается каждый день в 0:30 по московскому времени и удаляет из журнала
+     * {@code sent_reminders} записи о платежах, напоминания о которых уже не отправятся.
+     * <p>
+     * Напоминание о платеже отправляется не позже дня платежа, а догоняющий запуск повторяет
+     * пропущенный день не глубже {@code recurix.jobs.catch-up.look-back}, поэтому записи
+     * о платежах раньше этой глубины больше не нужны.
+     */
+    @Scheduled(cron = RETENTION_CRON, zone = "Europe/Moscow")
+    public void purgeSentReminders() {
+        LocalDate cutoff = LocalDate.now(PartitionedJobRunner.ZONE)
+                .minusDays(jobProperties.getCatchUpLookBack().toDays() + 1);
+
+        sentReminderRepository.deleteOlderThan(cutoff)
+                .subscribe(deleted -> log.info("SCHEDULER: Purged {} sent reminders for payments before {}.", deleted, cutoff),
+                        e -> log.error("SCHEDULER: Failed to purge sent reminders.", e));
+    }
+
+    @Override
+    public String name() {
+        return JOB_NAME;
+    }
+
+    @Override
+    public String cron() {
+        return CRON;
+    }
+
+    /**
+     * Отправляет напоминания по подпискам одной партиции.
+     *
+     * @param runDate   Дата, относительно которой считаются дни до платежа.
+     * @param partition Захваченная партиция.
+     * @return {@code Flux} с ID подписок, по которым отправлены напоминания.
+     */
+    @Override
+    public Flux<Long> processPartition(LocalDate runDate, JobPartition partition) {
+        return readRouting.read(subscriptionRepository.findAllForRemindingInPartition(
+                runDate,
+                partition.number(),
+                partition.count(),
+                partition.lastProcessedId()))
+                .flatMapSequential(reminderDto -> claimAndSend(reminderDto)
+                        .thenReturn(reminderDto.id()), SEND_CONCURRENCY);
+    }
+
+    /**
+     * Отправляет напоминание по одной подписке, если на {@code runDate} оно действительно положено.
+     *
+     * @param subscriptionId ID подписки.
+     * @param runDate        День, в который должно прийти напоминание.
+     * @return {@code Mono} с {@code true}, если напоминание отправлено этим вызовом.
+     */
+    public Mono<Boolean> sendReminder(long subscriptionId, LocalDate runDate) {
+        return subscriptionRepository.findForReminding(subscriptionId, runDate)
+                .flatMap(this::claimAndSend)
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Захватывает напоминание и отправляет его. Если отправка не удалась,
+     * захват снимается, чтобы напоминание можно было отправить повторно.
+     *
+     * @return {@code Mono} с {@code true}, если напоминание отправлено,
+     *         и {@code false}, если его уже отправил кто-то другой.
+     */
+    private Mono<Boolean> claimAndSend(ReminderDto reminderDto) {
+        return sentReminderRepository.claim(reminderDto.id(), reminderDto.paymentDate())
+                .flatMap(claimed -> !claimed
+                        ? Mono.just(false)
+                        : sendReminderMessage(reminderDto)
+                                .thenReturn(true)
+                                .onErrorResume(e -> sentReminderRepository
+                                        .release(reminderDto.id(), reminderDto.paymentDate())
+                                        .then(Mono.error(e))));
+    }
+
     /**
      * Отправляет сообщение с напоминанием пользователю.
      *
@@ -82,12 +185,12 @@ public class ReminderService {
                 .parseMode(ParseMode.HTML)
                 .build();
 
-        return Mono.fromRunnable(() -> {
+        return Mono.<Void>fromRunnable(() -> {
             try {
                 recurixBot.execute(message);
             } catch (TelegramApiException e) {
                 throw new RuntimeException("Failed to send telegram message", e);
             }
-        });
+        }).subscribeOn(Schedulers.boundedElastic());
     }
 }
@@ -0,0 +1,157 @@
+package com.halcyon.recurix.service;
+
+import com.halcyon.recurix.dto.MonthCategoryDeltaDto;
+import com.halcyon.recurix.job.PartitionedJobRunner;
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.repository.MonthlyTotalsRepository;
+import com.halcyon.recurix.support.Money;
+import com.halcyon.recurix.support.SpendingProjection;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Поддерживает месячные агрегаты расходов по категориям в актуальном состоянии.
+ * <p>
+ * При создании, изменении и удалении подписки {@link SubscriptionService} передает сюда
+ * старые и новые версии строк в рамках своей транзакции; изменения агрегатов
+ * вычисляются через {@link SpendingProjection} по месяцам от опорной даты до
+ * границы покрытия. Продление подписки сдвигает опорную дату на уже учтенный платеж,
+ * поэтому агрегатов не меняет.
+ * <p>
+ * Граница покрытия сдвигается ежедневно на {@code recurix.analytics.aggregates.horizon-months}
+ * месяцев вперед; месяцы за границей аналитика считает по исходным подпискам.
+ */
+@Service
+@Slf4j
+public class SpendingAggregatesService {
+
+    private final MonthlyTotalsRepository totalsRepository;
+    private final int horizonMonths;
+
+    private volatile YearMonth coveredUntil;
+
+    public SpendingAggregatesService(
+            MonthlyTotalsRepository totalsRepository,
+            @Value("${recurix.analytics.aggregates.horizon-months:24}") int horizonMonths
+    ) {
+        this.totalsRepository = totalsRepository;
+        this.horizonMonths = horizonMonths;
+    }
+
+    /**
+     * Заменяет вклад подписок в агрегаты: вычитает {@code removed} и добавляет {@code added}.
+     * Должен вызываться в транзакции, изменяющей сами подписки.
+     *
+     * @param removed Прежние версии подписок (удаленных или измененных).
+     * @param added   Новые версии подписок (созданных или измененных).
+     * @return {@code Mono<Void>}, завершающийся после записи агрегатов.
+     */
+    public Mono<Void> replace(List<Subscription> removed, List<Subscription> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return totalsRepository.lockCoveredUntil()
+                .flatMap(until -> totalsRepository.apply(deltas(removed, added, YearMonth.from(until))));
+    }
+
+    /**
+     * Проверяет, покрыт ли месяц агрегатами.
+     * <p>
+     * Пока граница покрытия еще не прочитана при старте, она читается из БД: иначе сразу
+     * после старта покрытые месяцы считались бы по подпискам, а этот путь не видит платежей
+     * до опорной даты, уже сдвинутой продлением, и расходился бы с агрегатами.
+     *
+     * @param yearMonth Месяц.
+     * @return {@code Mono} с {@code true}, если месяц покрыт агрегатами и их можно читать вместо подписок.
+     */
+    public Mono<Boolean> covers(YearMonth yearMonth) {
+        YearMonth until = coveredUntil;
+        Mono<YearMonth> coverage = until != null
+                ? Mono.just(until)
+                : totalsRepository.findCoveredUntil().map(YearMonth::from);
+
+        return coverage
+                .map(month -> !yearMonth.isAfter(month))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Сдвигает границу покрытия при старте и раз в сутки.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 5 0 * * *", zone = "Europe/Moscow")
+    public void extendCoverage() {
+        LocalDate target = YearMonth.now(PartitionedJobRunner.ZONE).plusMonths(horizonMonths).atDay(1);
+
+        totalsRepository.extendCoverage(target)
+                .subscribe(until -> {
+                    coveredUntil = YearMonth.from(until);
+                    log.info("Monthly spending aggregates cover months up to {}", coveredUntil);
+                }, e -> log.error("Failed to extend monthly spending aggregates", e));
+    }
+
+    /**
+     * Вычисляет изменения агрегатов по месяцам до {@code until} включительно.
+     */
+    static List<MonthCategoryDeltaDto> deltas(List<Subscription> removed, List<Subscription> added, YearMonth until) {
+        Map<DeltaKey, long[]> totals = new LinkedHashMap<>();
+        accumulate(removed, -1, until, totals);
+        accumulate(added, 1, until, totals);
+
+        List<MonthCategoryDeltaDto> deltas = new ArrayList<>(totals.size());
+        totals.forEach((key, value) -> {
+            if (value[0] != 0 || value[1] != 0) {
+                deltas.add(new MonthCategoryDeltaDto(
+                        key.userId(),
+                        key.month().atDay(1),
+                        key.category(),
+                        Money.fromMinorUnits(value[0]),
+                        (int) value[1]));
+            }
+        });
+        return deltas;
+    }
+
+    private static void accumulate(List<Subscription> subscriptions, int sign, YearMonth until, Map<DeltaKey, long[]> totals) {
+        List<Subscription> dated = subscriptions.stream()
+                .filter(subscription -> subscription.getPaymentDate() != null)
+                .toList();
+        if (dated.isEmpty()) {
+            return;
+        }
+
+        SpendingProjection projection = SpendingProjection.of(dated);
+        long fromDay = dated.stream()
+                .mapToLong(subscription -> subscription.getPaymentDate().toEpochDay())
+                .min()
+                .getAsLong();
+
+        projection.forEachOccurrence(fromDay, until.atEndOfMonth().toEpochDay(), (index, day) -> {
+            Subscription subscription = dated.get(index);
+            DeltaKey key = new DeltaKey(
+                    subscription.getUserId(),
+                    YearMonth.from(LocalDate.ofEpochDay(day)),
+                    Objects.requireNonNullElse(subscription.getCategory(), ""));
+
+            long[] value = totals.computeIfAbsent(key, k -> new long[2]);
+            value[0] += sign * projection.amount(index);
+            value[1] += sign;
+        });
+    }
+
+    private record DeltaKey(Long userId, YearMonth month, String category) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.halcyon.recurix.service;
+
+import com.halcyon.recurix.dto.SpendingRollupReportDto;
+import com.halcyon.recurix.repository.SpendingRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Сводные отчеты по всем пользователям.
+ * <p>
+ * Данные читаются из материализованного представления, которое обновляется
+ * по расписанию {@code recurix.analytics.rollup.cron} в режиме {@code CONCURRENTLY};
+ * одновременно обновление выполняет только один экземпляр. Длительность обновления
+ * экспортируется таймером {@code recurix.analytics.rollup.refresh}.
+ */
+@Service
+@Slf4j
+public class SpendingRollupService {
+
+    private final SpendingRollupRepository rollupRepository;
+    private final Timer refreshTimer;
+
+    private volatile Instant refreshedAt;
+
+    public SpendingRollupService(SpendingRollupRepository rollupRepository, MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.refreshTimer = Timer.builder("recurix.analytics.rollup.refresh")
+                .description("Time to refresh the spending rollup view")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${recurix.analytics.rollup.cron:0 15 * * * *}", zone = "Europe/Moscow")
+    public void scheduledRefresh() {
+        refresh().subscribe(
+                refreshed -> log.info("Spending rollup refresh {}", refreshed ? "completed" : "skipped, running elsewhere"),
+                e -> log.error("Failed to refresh spending rollup", e));
+    }
+
+    /**
+     * Обновляет представление.
+     *
+     * @return {@code Mono} с {@code true}, если обновление выполнено этим вызовом,
+     *         и {@code false}, если его уже выполняет другой экземпляр.
+     */
+    public Mono<Boolean> refresh() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+
+            return rollupRepository.refresh()
+                    .doOnNext(refreshed -> {
+                        if (refreshed) {
+                            refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            refreshedAt = Instant.now();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Собирает отчет за период: итоги по месяцам и суммы по категориям.
+     *
+     * @param from Первый месяц.
+     * @param to   Последний месяц включительно.
+     * @return {@code Mono} с отчетом; {@code refreshedAt} — время последнего обновления
+     *         этим экземпляром или {@code null}, если он еще не обновлял представление.
+     */
+    public Mono<SpendingRollupReportDto> getReport(YearMonth from, YearMonth to) {
+        return Mono.zip(
+                rollupRepository.findMonthSummaries(from, to).collectList(),
+                rollupRepository.findCategoryTotals(from, to).collectList(),
+                (months, categories) -> new SpendingRollupReportDto(from, to, refreshedAt, months, categories));
+    }
+}
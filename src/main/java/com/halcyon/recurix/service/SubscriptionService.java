@@ -1,12 +1,29 @@
 package com.halcyon.recurix.service;
 
+import com.halcyon.recurix.cache.SubscriptionSnapshotCache;
+import com.halcyon.recurix.cache.UserDataVersions;
+import com.halcyon.recurix.dto.SubscriptionPageRowDto;
+import com.halcyon.recurix.event.SubscriptionDeletedEvent;
+import com.halcyon.recurix.event.SubscriptionSavedEvent;
+import com.halcyon.recurix.job.PartitionedJobRunner;
 import com.halcyon.recurix.model.Subscription;
 import com.halcyon.recurix.repository.SubscriptionRepository;
+import com.halcyon.recurix.repository.routing.ReadRouting;
 import com.halcyon.recurix.service.pagination.Page;
+import com.halcyon.recurix.service.pagination.PageCursor;
+import com.halcyon.recurix.service.pagination.PaginationConstants;
+import com.halcyon.recurix.service.pagination.SubscriptionSnapshot;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -15,9 +32,34 @@ import reactor.core.publisher.Mono;
 public class SubscriptionService {
 
     private final SubscriptionRepository subscriptionRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserDataVersions dataVersions;
+    private final SpendingAggregatesService spendingAggregates;
+    private final ReadRouting readRouting;
+    private final SubscriptionSnapshotCache snapshotCache;
 
+    /**
+     * Сохраняет подписку и в той же транзакции обновляет месячные агрегаты расходов.
+     * <p>
+     * После фиксации сначала публикует событие сохранения, по которому {@link ReadRouting}
+     * направляет чтения владельца на основную БД, и только затем увеличивает версию его данных,
+     * чтобы закэшированные аналитика и снимки пересчитались. В обратном порядке чтение между
+     * этими шагами могло бы уйти на отстающую реплику и закэшировать старые данные под новой версией.
+     */
     public Mono<Subscription> save(Subscription subscription) {
-        return subscriptionRepository.save(subscription);
+        Mono<List<Subscription>> previous = subscription.getId() == null
+                ? Mono.just(List.of())
+                : subscriptionRepository.findByIdForUpdate(subscription.getId())
+                        .map(List::of)
+                        .defaultIfEmpty(List.of());
+
+        return previous
+                .flatMap(removed -> subscriptionRepository.save(subscription)
+                        .flatMap(saved -> spendingAggregates.replace(removed, List.of(saved)).thenReturn(saved)))
+                .as(transactionalOperator::transactional)
+                .doOnNext(this::publishSaved)
+                .flatMap(saved -> dataVersions.bump(saved.getUserId()).thenReturn(saved));
     }
 
     public Mono<Subscription> findById(Long subscriptionId) {
@@ -30,29 +72,198 @@ public class SubscriptionService {
 
     /**
      * Централизованно получает страницу подписок для пользователя.
-     * 
+     * <p>
+     * Страница строится из снимка подписок пользователя в {@link SubscriptionSnapshotCache};
+     * если подписок больше, чем кэшируется, она читается из БД вместе с общим количеством
+     * одним запросом. Если запрошенная страница оказалась за концом списка (например, после
+     * удаления последней подписки на ней), возвращается последняя непустая страница.
+     *
      * @param userId   ID пользователя.
      * @param pageable Объект с информацией о странице, размере и сортировке.
      * @return Mono с объектом Page.
      */
     public Mono<Page<Subscription>> getSubscriptionsAsPage(Long userId, Pageable pageable) {
-        Mono<Integer> totalElementsMono = this.countByUserId(userId);
-        Mono<List<Subscription>> contentMono = getAllByUserId(userId, pageable).collectList();
+        Sort.Order priceOrder = pageable.getSort().getOrderFor("price");
+        Sort.Order order = priceOrder != null ? priceOrder : pageable.getSort().getOrderFor("paymentDate");
+
+        return getSnapshot(userId)
+                .map(snapshot -> snapshot.page(
+                        priceOrder != null ? "price" : "paymentDate",
+                        order == null ? Sort.Direction.ASC : order.getDirection(),
+                        pageable.getPageNumber(),
+                        pageable.getPageSize()))
+                .switchIfEmpty(Mono.defer(() -> loadPage(userId, pageable)));
+    }
+
+    /**
+     * Получает соседнюю страницу подписок по курсору, не пропуская строки предыдущих страниц.
+     * <p>
+     * Если граничная строка курсора удалена, страница все равно строится от ее ключа. Если
+     * после курсора строк не осталось (например, их удалили), показывается страница с тем же
+     * номером, выбранная по смещению.
+     *
+     * @param userId ID пользователя.
+     * @param cursor Курсор из кнопки навигации.
+     * @return Mono с объектом Page.
+     */
+    public Mono<Page<Subscription>> getSubscriptionsAsPage(Long userId, PageCursor cursor) {
+        return getSnapshot(userId)
+                .map(snapshot -> snapshot.page(cursor, PaginationConstants.DEFAULT_PAGE_SIZE))
+                .switchIfEmpty(Mono.defer(() -> loadPage(userId, cursor)));
+    }
+
+    /**
+     * Возвращает снимок подписок пользователя для текущей версии его данных
+     * или пустой {@code Mono}, если подписок слишком много для снимка.
+     * <p>
+     * Снимок для кэша читается с основной БД: реплика может еще не содержать изменение,
+     * после которого выросла версия, и устаревший снимок жил бы под новой версией до TTL.
+     */
+    private Mono<SubscriptionSnapshot> getSnapshot(Long userId) {
+        LocalDate today = today();
+        int limit = snapshotCache.maxSubscriptions();
+
+        return dataVersions.current(userId)
+                .flatMap(version -> snapshotCache.get(userId, version, today,
+                        () -> subscriptionRepository.findAllByUserIdLimited(userId, limit + 1)
+                                .collectList()
+                                .map(subscriptions -> subscriptions.size() > limit
+                                        ? SubscriptionSnapshot.incomplete()
+                                        : SubscriptionSnapshot.of(subscriptions, today))))
+                .filter(SubscriptionSnapshot::complete);
+    }
+
+    private Mono<Page<Subscription>> loadPage(Long userId, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+
+        return readRouting.readFor(userId, getPageRows(userId, pageable))
+                .collectList()
+                .flatMap(rows -> {
+                    if (!rows.isEmpty() || pageable.getPageNumber() == 0) {
+                        return Mono.just(toPage(rows, pageable.getPageNumber(), pageSize));
+                    }
 
-        return Mono.zip(contentMono, totalElementsMono, (content, total) -> {
-            int pageSize = pageable.getPageSize();
-            int totalPages = (total == 0)
-                    ? 1
-                    : (int) Math.ceil((double) total / pageSize);
-            return new Page<>(content, pageable.getPageNumber(), totalPages, total);
-        });
+                    return readRouting.readFor(userId, countByUserId(userId))
+                            .flatMap(total -> total == 0
+                                    ? Mono.just(toPage(List.of(), 0, pageSize))
+                                    : loadPage(userId, pageable.withPage(totalPages(total, pageSize) - 1)));
+                });
     }
 
-    private Flux<Subscription> getAllByUserId(Long userId, Pageable pageable) {
-        return subscriptionRepository.findAllByUserId(userId, pageable);
+    private Mono<Page<Subscription>> loadPage(Long userId, PageCursor cursor) {
+        int pageSize = PaginationConstants.DEFAULT_PAGE_SIZE;
+
+        return readRouting.readFor(userId, seek(userId, cursor, pageSize))
+                .collectList()
+                .flatMap(rows -> {
+                    if (rows.isEmpty()) {
+                        Sort sort = Sort.by(cursor.direction(), cursor.sortField());
+                        return loadPage(userId, PageRequest.of(cursor.page(), pageSize, sort));
+                    }
+                    if (cursor.forward()) {
+                        return Mono.just(toPage(rows, cursor.page(), pageSize));
+                    }
+
+                    List<SubscriptionPageRowDto> reversed = new ArrayList<>(rows);
+                    Collections.reverse(reversed);
+                    return Mono.just(toPage(reversed, cursor.page(), pageSize));
+                });
+    }
+
+    private Flux<SubscriptionPageRowDto> seek(Long userId, PageCursor cursor, int limit) {
+        if (cursor.byPrice()) {
+            return cursor.seekAscending()
+                    ? subscriptionRepository.findPageByUserIdOrderByPriceAfter(userId, cursor.price(), cursor.id(), limit)
+                    : subscriptionRepository.findPageByUserIdOrderByPriceBefore(userId, cursor.price(), cursor.id(), limit);
+        }
+
+        LocalDate today = today();
+        return cursor.seekAscending()
+                ? subscriptionRepository.findPageByUserIdOrderByEffectiveDateAfter(
+                        userId, today, cursor.paymentDate(), cursor.id(), limit)
+                : subscriptionRepository.findPageByUserIdOrderByEffectiveDateBefore(
+                        userId, today, cursor.paymentDate(), cursor.id(), limit);
     }
 
+    /**
+     * Загружает строки страницы, выбранной по смещению.
+     * <p>
+     * Сортировка по дате выполняется по ближайшей дате платежа, вычисленной в БД,
+     * а не по хранимой опорной дате, которая может отставать. При равных значениях строки
+     * упорядочиваются по ID в том же направлении, что и в запросах по курсору, поэтому
+     * переход по кнопкам со страницы, выбранной по смещению, ничего не пропускает.
+     */
+    private Flux<SubscriptionPageRowDto> getPageRows(Long userId, Pageable pageable) {
+        Sort.Order priceOrder = pageable.getSort().getOrderFor("price");
+
+        if (priceOrder != null) {
+            return subscriptionRepository.findPageByUserIdOrderByPrice(
+                    userId,
+                    priceOrder.isAscending(),
+                    pageable.getPageSize(),
+                    pageable.getOffset());
+        }
+
+        Sort.Order dateOrder = pageable.getSort().getOrderFor("paymentDate");
+        return subscriptionRepository.findPageByUserIdOrderByEffectiveDate(
+                userId,
+                today(),
+                dateOrder == null || dateOrder.isAscending(),
+                pageable.getPageSize(),
+                pageable.getOffset());
+    }
+
+    /**
+     * Текущий день в часовом поясе ежедневных задач: ближайшие даты платежей в списке
+     * вычисляются на тот же день, на который их сдвигает продление.
+     */
+    private static LocalDate today() {
+        return LocalDate.now(PartitionedJobRunner.ZONE);
+    }
+
+    /**
+     * Собирает страницу из строк, в каждой из которых есть общее количество подписок пользователя.
+     * Номер страницы ограничивается последней страницей на случай, если список успел сократиться.
+     */
+    private static Page<Subscription> toPage(List<SubscriptionPageRowDto> rows, int pageNumber, int pageSize) {
+        int total = rows.isEmpty() ? 0 : rows.get(0).totalCount().intValue();
+        int totalPages = totalPages(total, pageSize);
+        List<Subscription> content = rows.stream()
+                .map(row -> Subscription.builder()
+                        .id(row.id())
+                        .userId(row.userId())
+                        .name(row.name())
+                        .price(row.price())
+                        .paymentDate(row.paymentDate())
+                        .renewalMonths(row.renewalMonths())
+                        .category(row.category())
+                        .build())
+                .toList();
+
+        return new Page<>(content, Math.min(pageNumber, totalPages - 1), totalPages, total);
+    }
+
+    private static int totalPages(int total, int pageSize) {
+        return (total == 0)
+                ? 1
+                : (int) Math.ceil((double) total / pageSize);
+    }
+
+    /**
+     * Удаляет подписку вместе с ее вкладом в месячные агрегаты и увеличивает версию данных владельца.
+     * Как и в {@link #save}, событие удаления публикуется до увеличения версии.
+     */
     public Mono<Void> deleteById(long subscriptionId) {
-        return subscriptionRepository.deleteById(subscriptionId);
+        return subscriptionRepository.deleteReturning(subscriptionId)
+                .flatMap(deleted -> spendingAggregates.replace(List.of(deleted), List.of())
+                        .thenReturn(deleted.getUserId()))
+                .as(transactionalOperator::transactional)
+                .doOnNext(userId -> eventPublisher.publishEvent(new SubscriptionDeletedEvent(subscriptionId, userId)))
+                .flatMap(dataVersions::bump)
+                .then();
+    }
+
+    private void publishSaved(Subscription subscription) {
+        eventPublisher.publishEvent(new SubscriptionSavedEvent(subscription));
     }
 }
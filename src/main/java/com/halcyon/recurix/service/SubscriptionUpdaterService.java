@@ -1,60 +1,123 @@
 package com.halcyon.recurix.service;
 
-import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.cache.UserDataVersions;
+import com.halcyon.recurix.config.JobProperties;
+import com.halcyon.recurix.dto.RenewedSubscriptionDto;
+import com.halcyon.recurix.job.JobPartition;
+import com.halcyon.recurix.job.PartitionedJob;
+import com.halcyon.recurix.job.PartitionedJobRunner;
 import com.halcyon.recurix.repository.SubscriptionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Сервис для автоматического обновления дат прошедших подписок.
+ * <p>
+ * Даты пересчитываются на стороне БД пачками set-based UPDATE-запросов, а работа
+ * делится на партиции и распределяется между экземплярами через {@link PartitionedJobRunner}.
+ * <p>
+ * Запросы на чтение вычисляют ближайшую дату платежа на лету, поэтому задача лишь
+ * подтягивает опорные даты и может быть отключена свойством {@code recurix.jobs.renewal-enabled}.
+ * После каждой пачки увеличиваются версии данных владельцев продленных подписок
+ * ({@link UserDataVersions}), чтобы кэши, построенные по старым опорным датам, перестали находиться.
  */
 @Service
+@ConditionalOnProperty(name = "recurix.jobs.renewal-enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
-public class SubscriptionUpdaterService {
+public class SubscriptionUpdaterService implements PartitionedJob {
+
+    private static final String JOB_NAME = "subscription-renewal";
+    private static final String CRON = "0 0 15 * * *";
+    private static final int BUMP_CONCURRENCY = 16;
 
     private final SubscriptionRepository subscriptionRepository;
+    private final PartitionedJobRunner jobRunner;
+    private final JobProperties jobProperties;
+    private final UserDataVersions dataVersions;
 
     /**
      * Запускается ежедневно в 15:00 по МСК для обновления дат "просроченных" подписок.
      */
-    @Scheduled(cron = "0 0 15 * * *", zone = "Europe/Moscow")
+    @Scheduled(cron = CRON, zone = "Europe/Moscow")
     public void updatePastSubscriptions() {
         log.info("SCHEDULER: Starting daily subscription update task...");
 
-        subscriptionRepository.findAllByPaymentDateBefore(LocalDate.now())
-                .parallel()
-                .runOn(Schedulers.parallel())
-                .flatMap(this::updateSingleSubscriptionDate)
-                .sequential()
-                .count()
+        jobRunner.run(this, LocalDate.now(PartitionedJobRunner.ZONE))
                 .doOnSuccess(count -> log.info("SCHEDULER: Update task finished. Updated {} subscriptions.", count))
                 .doOnError(e -> log.error("SCHEDULER: Error during subscription update task.", e))
                 .subscribe();
     }
 
+    @Override
+    public String name() {
+        return JOB_NAME;
+    }
+
+    @Override
+    public String cron() {
+        return CRON;
+    }
+
     /**
-     * Обновляет дату следующего платежа у одной подписки.
+     * Обновляет даты платежей у просроченных подписок одной партиции.
+     * <p>
+     * Подписки продлеваются пачками по {@code renewalChunkSize}, каждая пачка — один
+     * UPDATE-запрос и одна транзакция.
      *
-     * @param subscription Подписка для обновления.
-     * @return {@code Mono<Void>}
+     * @param runDate   Дата, до которой подписки считаются просроченными.
+     * @param partition Захваченная партиция.
+     * @return {@code Flux} с ID обновленных подписок.
      */
-    private Mono<Void> updateSingleSubscriptionDate(Subscription subscription) {
-        LocalDate oldDate = subscription.getPaymentDate();
-        LocalDate newDate = oldDate;
+    @Override
+    public Flux<Long> processPartition(LocalDate runDate, JobPartition partition) {
+        int chunkSize = jobProperties.getRenewalChunkSize();
 
-        while (!newDate.isAfter(oldDate)) {
-            newDate = newDate.plusMonths(subscription.getRenewalMonths());
-        }
+        return renewChunk(runDate, partition, partition.lastProcessedId(), chunkSize)
+                .expand(ids -> ids.size() < chunkSize
+                        ? Mono.empty()
+                        : renewChunk(runDate, partition, ids.getLast(), chunkSize))
+                .flatMapIterable(ids -> ids);
+    }
 
-        subscription.setPaymentDate(newDate);
-        log.info("Updating payment date for subscription {}: from {} to {}", subscription.getId(), oldDate, newDate);
-        return subscriptionRepository.save(subscription).then();
+    /**
+     * Продлевает одну пачку просроченных подписок и после этого увеличивает версии данных их владельцев.
+     *
+     * @param runDate   Дата, до которой подписки считаются просроченными.
+     * @param partition Обрабатываемая партиция.
+     * @param afterId   ID, после которого начинается пачка.
+     * @param chunkSize Максимальный размер пачки.
+     * @return {@code Mono} с отсортированными ID обновленных подписок.
+     */
+    private Mono<List<Long>> renewChunk(LocalDate runDate, JobPartition partition, long afterId, int chunkSize) {
+        return subscriptionRepository.renewDueInPartition(
+                runDate,
+                partition.number(),
+                partition.count(),
+                afterId,
+                chunkSize)
+                .collectList()
+                .flatMap(renewed -> Flux.fromIterable(renewed)
+                        .map(RenewedSubscriptionDto::userId)
+                        .distinct()
+                        .flatMap(dataVersions::bump, BUMP_CONCURRENCY)
+                        .then(Mono.fromCallable(() -> renewed.stream()
+                                .map(RenewedSubscriptionDto::id)
+                                .sorted()
+                                .toList())))
+                .doOnNext(ids -> {
+                    if (!ids.isEmpty()) {
+                        log.info("Renewed {} subscriptions in partition {} (ids {}..{})",
+                                ids.size(), partition.number(), ids.getFirst(), ids.getLast());
+                    }
+                });
     }
 }
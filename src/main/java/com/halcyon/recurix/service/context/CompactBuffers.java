@@ -0,0 +1,94 @@
+package com.halcyon.recurix.service.context;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Примитивы компактного двоичного формата контекстов диалога.
+ * <p>
+ * Целые числа пишутся как varint (7 бит на байт, старший бит — признак продолжения)
+ * со знаком в zigzag-кодировке, строки — длиной в байтах и UTF-8.
+ */
+final class CompactBuffers {
+
+    private CompactBuffers() {}
+
+    static final class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        Writer writeByte(int value) {
+            out.write(value);
+            return this;
+        }
+
+        Writer writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+            return this;
+        }
+
+        Writer writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            if (position >= bytes.length) {
+                throw new SerializationException("Unexpected end of compact context");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int next = readByte();
+                zigzag |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new SerializationException("Malformed varint in compact context");
+        }
+
+        int readVarInt() {
+            long value = readVarLong();
+            if (value != (int) value) {
+                throw new SerializationException("Varint out of int range in compact context");
+            }
+            return (int) value;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length < 0 || length > bytes.length - position) {
+                throw new SerializationException("Malformed string in compact context");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.halcyon.recurix.service.context;
+
+import com.halcyon.recurix.handler.ConversationState;
+
+/**
+ * Все данные диалога пользователя, прочитанные из Redis за один запрос.
+ * Отсутствующие части равны {@code null}.
+ *
+ * @param state       Текущий шаг диалога.
+ * @param context     Контекст создаваемой или редактируемой подписки.
+ * @param listContext Контекст отображения списка подписок.
+ */
+public record Conversation(ConversationState state, SubscriptionContext context, SubscriptionListContext listContext) {}
@@ -0,0 +1,177 @@
+package com.halcyon.recurix.service.context;
+
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.service.context.CompactBuffers.Reader;
+import com.halcyon.recurix.service.context.CompactBuffers.Writer;
+import com.halcyon.recurix.support.Money;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Компактный двоичный формат {@link SubscriptionContext}.
+ * <p>
+ * Первый байт — версия формата, затем битовая маска заполненных полей и сами поля:
+ * числа — varint, дата — день эпохи, цена — сумма в копейках (или строкой, если
+ * в ней больше двух знаков после запятой), категория — строкой.
+ * Значения прежнего JSON-формата (начинаются с {@code '{'}) читаются через {@code legacy}.
+ */
+public final class SubscriptionContextCodec implements RedisSerializer<SubscriptionContext> {
+
+    static final int VERSION = 1;
+
+    private static final int HAS_SUBSCRIPTION = 1;
+    private static final int HAS_MESSAGE_ID = 1 << 1;
+    private static final int HAS_PAGE_NUMBER = 1 << 2;
+    private static final int HAS_ID = 1 << 3;
+    private static final int HAS_USER_ID = 1 << 4;
+    private static final int HAS_NAME = 1 << 5;
+    private static final int HAS_PRICE = 1 << 6;
+    private static final int PRICE_AS_STRING = 1 << 7;
+    private static final int HAS_PAYMENT_DATE = 1 << 8;
+    private static final int HAS_RENEWAL_MONTHS = 1 << 9;
+    private static final int HAS_CATEGORY = 1 << 10;
+
+    private final RedisSerializer<SubscriptionContext> legacy;
+
+    public SubscriptionContextCodec(RedisSerializer<SubscriptionContext> legacy) {
+        this.legacy = legacy;
+    }
+
+    @Override
+    public byte[] serialize(SubscriptionContext context) {
+        if (context == null) {
+            return null;
+        }
+
+        Subscription subscription = context.getSubscription();
+        BigDecimal price = subscription == null ? null : subscription.getPrice();
+        boolean priceAsString = price != null && !fitsMinorUnits(price);
+
+        int flags = flag(context.getMessageToEditId() != null, HAS_MESSAGE_ID)
+                | flag(context.getPageNumber() != null, HAS_PAGE_NUMBER);
+        if (subscription != null) {
+            flags |= HAS_SUBSCRIPTION
+                    | flag(subscription.getId() != null, HAS_ID)
+                    | flag(subscription.getUserId() != null, HAS_USER_ID)
+                    | flag(subscription.getName() != null, HAS_NAME)
+                    | flag(price != null, HAS_PRICE)
+                    | flag(priceAsString, PRICE_AS_STRING)
+                    | flag(subscription.getPaymentDate() != null, HAS_PAYMENT_DATE)
+                    | flag(subscription.getRenewalMonths() != null, HAS_RENEWAL_MONTHS)
+                    | flag(subscription.getCategory() != null, HAS_CATEGORY);
+        }
+
+        Writer writer = new Writer()
+                .writeByte(VERSION)
+                .writeVarLong(flags);
+
+        if (context.getMessageToEditId() != null) {
+            writer.writeVarLong(context.getMessageToEditId());
+        }
+        if (context.getPageNumber() != null) {
+            writer.writeVarLong(context.getPageNumber());
+        }
+        if (subscription == null) {
+            return writer.toByteArray();
+        }
+
+        if (subscription.getId() != null) {
+            writer.writeVarLong(subscription.getId());
+        }
+        if (subscription.getUserId() != null) {
+            writer.writeVarLong(subscription.getUserId());
+        }
+        if (subscription.getName() != null) {
+            writer.writeString(subscription.getName());
+        }
+        if (price != null) {
+            if (priceAsString) {
+                writer.writeString(price.toPlainString());
+            } else {
+                writer.writeVarLong(Money.toMinorUnits(price));
+            }
+        }
+        if (subscription.getPaymentDate() != null) {
+            writer.writeVarLong(subscription.getPaymentDate().toEpochDay());
+        }
+        if (subscription.getRenewalMonths() != null) {
+            writer.writeVarLong(subscription.getRenewalMonths());
+        }
+        if (subscription.getCategory() != null) {
+            writer.writeString(subscription.getCategory());
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public SubscriptionContext deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == '{') {
+            return legacy.deserialize(bytes);
+        }
+
+        Reader reader = new Reader(bytes);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported subscription context version " + version);
+        }
+
+        long flags = reader.readVarLong();
+        var context = new SubscriptionContext();
+        if (has(flags, HAS_MESSAGE_ID)) {
+            context.setMessageToEditId(reader.readVarInt());
+        }
+        if (has(flags, HAS_PAGE_NUMBER)) {
+            context.setPageNumber(reader.readVarInt());
+        }
+        if (!has(flags, HAS_SUBSCRIPTION)) {
+            return context;
+        }
+
+        var subscription = new Subscription();
+        subscription.setRenewalMonths(null);
+        if (has(flags, HAS_ID)) {
+            subscription.setId(reader.readVarLong());
+        }
+        if (has(flags, HAS_USER_ID)) {
+            subscription.setUserId(reader.readVarLong());
+        }
+        if (has(flags, HAS_NAME)) {
+            subscription.setName(reader.readString());
+        }
+        if (has(flags, HAS_PRICE)) {
+            subscription.setPrice(has(flags, PRICE_AS_STRING)
+                    ? new BigDecimal(reader.readString())
+                    : Money.fromMinorUnits(reader.readVarLong()));
+        }
+        if (has(flags, HAS_PAYMENT_DATE)) {
+            subscription.setPaymentDate(LocalDate.ofEpochDay(reader.readVarLong()));
+        }
+        if (has(flags, HAS_RENEWAL_MONTHS)) {
+            subscription.setRenewalMonths(reader.readVarInt());
+        }
+        if (has(flags, HAS_CATEGORY)) {
+            subscription.setCategory(reader.readString());
+        }
+        context.setSubscription(subscription);
+        return context;
+    }
+
+    private static boolean fitsMinorUnits(BigDecimal price) {
+        return price.scale() <= Money.MINOR_UNITS_SCALE
+                && price.compareTo(Money.fromMinorUnits(Long.MAX_VALUE)) <= 0
+                && price.compareTo(Money.fromMinorUnits(Long.MIN_VALUE)) >= 0;
+    }
+
+    private static int flag(boolean condition, int flag) {
+        return condition ? flag : 0;
+    }
+
+    private static boolean has(long flags, int flag) {
+        return (flags & flag) != 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.halcyon.recurix.service.context;
+
+import com.halcyon.recurix.service.context.CompactBuffers.Reader;
+import com.halcyon.recurix.service.context.CompactBuffers.Writer;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Компактный двоичный формат {@link SubscriptionListContext}: версия, код поля сортировки
+ * и код направления — обычно три байта. Значения прежнего JSON-формата читаются через {@code legacy}.
+ */
+public final class SubscriptionListContextCodec implements RedisSerializer<SubscriptionListContext> {
+
+    static final int VERSION = 1;
+
+    /**
+     * Коды полей сортировки; {@code 0} — поле не задано, последний код — поле записано строкой.
+     */
+    private static final List<String> SORT_FIELDS = List.of("paymentDate", "price");
+    private static final int CUSTOM_SORT_FIELD = SORT_FIELDS.size() + 1;
+
+    private final RedisSerializer<SubscriptionListContext> legacy;
+
+    public SubscriptionListContextCodec(RedisSerializer<SubscriptionListContext> legacy) {
+        this.legacy = legacy;
+    }
+
+    @Override
+    public byte[] serialize(SubscriptionListContext context) {
+        if (context == null) {
+            return null;
+        }
+
+        Writer writer = new Writer().writeByte(VERSION);
+        if (context.sortField() == null) {
+            writer.writeByte(0);
+        } else if (SORT_FIELDS.contains(context.sortField())) {
+            writer.writeByte(SORT_FIELDS.indexOf(context.sortField()) + 1);
+        } else {
+            writer.writeByte(CUSTOM_SORT_FIELD).writeString(context.sortField());
+        }
+        writer.writeByte(context.sortDirection() == null ? 0 : context.sortDirection().ordinal() + 1);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public SubscriptionListContext deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == '{') {
+            return legacy.deserialize(bytes);
+        }
+
+        Reader reader = new Reader(bytes);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported list context version " + version);
+        }
+
+        int fieldCode = reader.readByte();
+        String sortField;
+        if (fieldCode == 0) {
+            sortField = null;
+        } else if (fieldCode == CUSTOM_SORT_FIELD) {
+            sortField = reader.readString();
+        } else if (fieldCode <= SORT_FIELDS.size()) {
+            sortField = SORT_FIELDS.get(fieldCode - 1);
+        } else {
+            throw new SerializationException("Unknown sort field code " + fieldCode);
+        }
+
+        int directionCode = reader.readByte();
+        Sort.Direction[] directions = Sort.Direction.values();
+        if (directionCode > directions.length) {
+            throw new SerializationException("Unknown sort direction code " + directionCode);
+        }
+        return new SubscriptionListContext(sortField, directionCode == 0 ? null : directions[directionCode - 1]);
+    }
+}
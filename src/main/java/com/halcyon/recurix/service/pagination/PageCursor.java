@@ -0,0 +1,127 @@
+package com.halcyon.recurix.service.pagination;
+
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.service.context.SubscriptionListContext;
+import com.halcyon.recurix.support.Money;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Курсор страницы списка подписок для постраничного перехода по ключу (keyset).
+ * <p>
+ * Хранит сортировку, номер целевой страницы и ключ граничной строки текущей страницы:
+ * значение поля сортировки и ID. Следующая страница — строки после последней строки текущей,
+ * предыдущая — строки перед первой. Значение ключа — число: для даты это номер дня эпохи,
+ * для цены — сумма в копейках (цена хранится как {@code DECIMAL(10, 2)}).
+ * <p>
+ * Курсор кодируется в callback-данные кнопок, поэтому формат компактный:
+ * {@code <поле><направление><переход><страница>.<ключ>.<id>}, числа — в системе счисления 36,
+ * например {@code dan1.jk2.1z3}. Вместе с префиксом это заметно меньше лимита Telegram в 64 байта.
+ *
+ * @param sortField Поле сортировки ("paymentDate" или "price").
+ * @param direction Направление сортировки.
+ * @param forward   {@code true} — строки после граничной, {@code false} — строки перед ней.
+ * @param page      Номер целевой страницы (с нуля).
+ * @param key       Значение поля сортировки граничной строки.
+ * @param id        ID граничной строки.
+ */
+public record PageCursor(String sortField, Sort.Direction direction, boolean forward, int page, long key, long id) {
+
+    private static final String PAYMENT_DATE = "paymentDate";
+    private static final String PRICE = "price";
+    private static final int RADIX = Character.MAX_RADIX;
+
+    /**
+     * Курсор на страницу, которая идет после строки {@code last}.
+     */
+    public static PageCursor after(SubscriptionListContext context, int page, Subscription last) {
+        return of(context, true, page, last);
+    }
+
+    /**
+     * Курсор на страницу, которая идет перед строкой {@code first}.
+     */
+    public static PageCursor before(SubscriptionListContext context, int page, Subscription first) {
+        return of(context, false, page, first);
+    }
+
+    private static PageCursor of(SubscriptionListContext context, boolean forward, int page, Subscription boundary) {
+        String sortField = PRICE.equals(context.sortField()) ? PRICE : PAYMENT_DATE;
+        long key = PRICE.equals(sortField)
+                ? Money.toMinorUnits(boundary.getPrice())
+                : boundary.getPaymentDate().toEpochDay();
+
+        return new PageCursor(sortField, context.sortDirection(), forward, page, key, boundary.getId());
+    }
+
+    /**
+     * Разбирает курсор из callback-данных.
+     *
+     * @throws IllegalArgumentException если строка не является курсором.
+     */
+    public static PageCursor decode(String value) {
+        String[] parts = value.split("\\.");
+        if (parts.length != 3 || parts[0].length() < 4) {
+            throw new IllegalArgumentException("Malformed page cursor: " + value);
+        }
+
+        String flags = parts[0];
+        String sortField = switch (flags.charAt(0)) {
+            case 'd' -> PAYMENT_DATE;
+            case 'p' -> PRICE;
+            default -> throw new IllegalArgumentException("Unknown sort field in page cursor: " + value);
+        };
+        Sort.Direction direction = switch (flags.charAt(1)) {
+            case 'a' -> Sort.Direction.ASC;
+            case 'd' -> Sort.Direction.DESC;
+            default -> throw new IllegalArgumentException("Unknown sort direction in page cursor: " + value);
+        };
+        boolean forward = switch (flags.charAt(2)) {
+            case 'n' -> true;
+            case 'p' -> false;
+            default -> throw new IllegalArgumentException("Unknown navigation in page cursor: " + value);
+        };
+
+        return new PageCursor(
+                sortField,
+                direction,
+                forward,
+                Integer.parseInt(flags.substring(3), RADIX),
+                Long.parseLong(parts[1], RADIX),
+                Long.parseLong(parts[2], RADIX));
+    }
+
+    public String encode() {
+        return String.valueOf(PRICE.equals(sortField) ? 'p' : 'd')
+                + (direction == Sort.Direction.DESC ? 'd' : 'a')
+                + (forward ? 'n' : 'p')
+                + Integer.toString(page, RADIX)
+                + '.' + Long.toString(key, RADIX)
+                + '.' + Long.toString(id, RADIX);
+    }
+
+    public SubscriptionListContext listContext() {
+        return new SubscriptionListContext(sortField, direction);
+    }
+
+    public boolean byPrice() {
+        return PRICE.equals(sortField);
+    }
+
+    /**
+     * Строки читаются по возрастанию ключа: вперед при сортировке по возрастанию
+     * или назад при сортировке по убыванию.
+     */
+    public boolean seekAscending() {
+        return forward == (direction == Sort.Direction.ASC);
+    }
+
+    public BigDecimal price() {
+        return Money.fromMinorUnits(key);
+    }
+
+    public LocalDate paymentDate() {
+        return LocalDate.ofEpochDay(key);
+    }
+}
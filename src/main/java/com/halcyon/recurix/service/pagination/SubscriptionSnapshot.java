@@ -0,0 +1,212 @@
+package com.halcyon.recurix.service.pagination;
+
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.support.Money;
+import com.halcyon.recurix.support.PaymentDates;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Неизменяемый снимок всех подписок пользователя на дату, из которого страницы списка
+ * строятся без обращения к БД.
+ * <p>
+ * Даты платежей в снимке — ближайшие на дату снимка, как в запросах списка. Для каждого
+ * поля сортировки заранее построен массив индексов подписок в порядке возрастания
+ * {@code (ключ, id)}; сортировка по убыванию читает тот же массив с конца. Ключи хранятся
+ * в примитивных массивах (день эпохи, цена в копейках), поэтому позиция курсора
+ * {@link PageCursor} находится двоичным поиском, а порядок строк совпадает с запросами по ключу.
+ */
+public final class SubscriptionSnapshot {
+
+    /**
+     * Примерный размер одной подписки в куче без строк: объект, {@code BigDecimal},
+     * {@code LocalDate}, упакованные числа и элементы массивов снимка.
+     */
+    private static final int SUBSCRIPTION_OVERHEAD_BYTES = 200;
+    private static final int SNAPSHOT_OVERHEAD_BYTES = 128;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final List<Subscription> subscriptions;
+    private final long[] ids;
+    private final long[] dateKeys;
+    private final long[] priceKeys;
+    private final int[] byDate;
+    private final int[] byPrice;
+    private final boolean complete;
+
+    private SubscriptionSnapshot(List<Subscription> subscriptions, boolean complete) {
+        int size = subscriptions.size();
+        this.subscriptions = subscriptions;
+        this.ids = new long[size];
+        this.dateKeys = new long[size];
+        this.priceKeys = new long[size];
+        this.complete = complete;
+
+        for (int i = 0; i < size; i++) {
+            Subscription subscription = subscriptions.get(i);
+            ids[i] = subscription.getId();
+            dateKeys[i] = subscription.getPaymentDate().toEpochDay();
+            priceKeys[i] = Money.toMinorUnits(subscription.getPrice());
+        }
+
+        this.byDate = sortedIndexes(dateKeys);
+        this.byPrice = sortedIndexes(priceKeys);
+    }
+
+    /**
+     * Строит снимок подписок на дату {@code today}.
+     *
+     * @param subscriptions Подписки пользователя с хранимыми опорными датами.
+     * @param today         Дата, на которую вычисляются ближайшие даты платежей.
+     * @return Снимок.
+     */
+    public static SubscriptionSnapshot of(Collection<Subscription> subscriptions, LocalDate today) {
+        List<Subscription> effective = new ArrayList<>(subscriptions.size());
+        for (Subscription subscription : subscriptions) {
+            effective.add(Subscription.builder()
+                    .id(subscription.getId())
+                    .userId(subscription.getUserId())
+                    .name(subscription.getName())
+                    .price(subscription.getPrice())
+                    .paymentDate(PaymentDates.effective(subscription.getPaymentDate(), subscription.getRenewalMonths(), today))
+                    .renewalMonths(subscription.getRenewalMonths())
+                    .category(subscription.getCategory())
+                    .build());
+        }
+        return new SubscriptionSnapshot(List.copyOf(effective), true);
+    }
+
+    /**
+     * Снимок-заглушка для пользователя, у которого подписок больше, чем кэшируется;
+     * его страницы читаются из БД.
+     */
+    public static SubscriptionSnapshot incomplete() {
+        return new SubscriptionSnapshot(List.of(), false);
+    }
+
+    /**
+     * @return {@code true}, если снимок содержит все подписки пользователя.
+     */
+    public boolean complete() {
+        return complete;
+    }
+
+    public int size() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Возвращает страницу по номеру. Номер за концом списка заменяется последней страницей.
+     *
+     * @param sortField  Поле сортировки ("paymentDate" или "price").
+     * @param direction  Направление сортировки.
+     * @param pageNumber Номер страницы (с нуля).
+     * @param pageSize   Размер страницы.
+     * @return Страница.
+     */
+    public Page<Subscription> page(String sortField, Sort.Direction direction, int pageNumber, int pageSize) {
+        int totalPages = totalPages(pageSize);
+        int currentPage = Math.max(0, Math.min(pageNumber, totalPages - 1));
+        int from = currentPage * pageSize;
+
+        return slice(sortField, direction, from, Math.min(from + pageSize, size()), currentPage, pageSize);
+    }
+
+    /**
+     * Возвращает соседнюю страницу по курсору: строки после граничной строки курсора
+     * или перед ней. Если строк в нужную сторону не осталось, страница выбирается по номеру.
+     *
+     * @param cursor   Курсор из кнопки навигации.
+     * @param pageSize Размер страницы.
+     * @return Страница.
+     */
+    public Page<Subscription> page(PageCursor cursor, int pageSize) {
+        long[] keys = cursor.byPrice() ? priceKeys : dateKeys;
+        int[] order = cursor.byPrice() ? byPrice : byDate;
+        int lower = bound(keys, order, cursor.key(), cursor.id(), false);
+        int upper = bound(keys, order, cursor.key(), cursor.id(), true);
+        boolean ascending = cursor.direction() == Sort.Direction.ASC;
+
+        int from;
+        int to;
+        if (cursor.forward()) {
+            from = ascending ? upper : size() - lower;
+            to = Math.min(from + pageSize, size());
+        } else {
+            to = ascending ? lower : size() - upper;
+            from = Math.max(to - pageSize, 0);
+        }
+
+        if (from >= to) {
+            return page(cursor.sortField(), cursor.direction(), cursor.page(), pageSize);
+        }
+        int currentPage = Math.min(cursor.page(), totalPages(pageSize) - 1);
+        return slice(cursor.sortField(), cursor.direction(), from, to, currentPage, pageSize);
+    }
+
+    /**
+     * @return Примерный объем памяти, который занимает снимок, в байтах.
+     */
+    public long sizeBytes() {
+        long bytes = SNAPSHOT_OVERHEAD_BYTES;
+        for (Subscription subscription : subscriptions) {
+            bytes += SUBSCRIPTION_OVERHEAD_BYTES
+                    + stringBytes(subscription.getName())
+                    + stringBytes(subscription.getCategory());
+        }
+        return bytes;
+    }
+
+    private Page<Subscription> slice(String sortField, Sort.Direction direction, int from, int to, int currentPage, int pageSize) {
+        int[] order = "price".equals(sortField) ? byPrice : byDate;
+        boolean ascending = direction == Sort.Direction.ASC;
+
+        List<Subscription> content = new ArrayList<>(to - from);
+        for (int position = from; position < to; position++) {
+            content.add(subscriptions.get(order[ascending ? position : size() - 1 - position]));
+        }
+        return new Page<>(content, currentPage, totalPages(pageSize), size());
+    }
+
+    /**
+     * Количество строк, меньших {@code (key, id)} (или не больших, если {@code inclusive}),
+     * в порядке возрастания {@code order}.
+     */
+    private int bound(long[] keys, int[] order, long key, long id, boolean inclusive) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int index = order[middle];
+            int comparison = keys[index] != key ? Long.compare(keys[index], key) : Long.compare(ids[index], id);
+            if (comparison < 0 || (inclusive && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int[] sortedIndexes(long[] keys) {
+        return IntStream.range(0, keys.length)
+                .boxed()
+                .sorted((a, b) -> keys[a] != keys[b] ? Long.compare(keys[a], keys[b]) : Long.compare(ids[a], ids[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private int totalPages(int pageSize) {
+        return size() == 0
+                ? 1
+                : (size() + pageSize - 1) / pageSize;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+}
@@ -0,0 +1,58 @@
+package com.halcyon.recurix.service.store;
+
+/**
+ * Закодированные поля диалога пользователя; отсутствующие поля равны {@code null}.
+ *
+ * @param state       Текущий шаг диалога.
+ * @param context     Контекст подписки.
+ * @param listContext Контекст списка подписок.
+ */
+public record ConversationFields(byte[] state, byte[] context, byte[] listContext) {
+
+    public static final String STATE = "state";
+    public static final String CONTEXT = "context";
+    public static final String LIST_CONTEXT = "list_context";
+
+    public static final ConversationFields EMPTY = new ConversationFields(null, null, null);
+
+    public ConversationFields withState(byte[] state) {
+        return new ConversationFields(state, context, listContext);
+    }
+
+    public ConversationFields withContext(byte[] context) {
+        return new ConversationFields(state, context, listContext);
+    }
+
+    public ConversationFields withListContext(byte[] listContext) {
+        return new ConversationFields(state, context, listContext);
+    }
+
+    /**
+     * @param field Имя поля: {@link #STATE}, {@link #CONTEXT} или {@link #LIST_CONTEXT}.
+     * @param value Новое значение или {@code null}, чтобы удалить поле.
+     * @return Копия с измененным полем.
+     */
+    public ConversationFields with(String field, byte[] value) {
+        return switch (field) {
+            case STATE -> withState(value);
+            case CONTEXT -> withContext(value);
+            case LIST_CONTEXT -> withListContext(value);
+            default -> throw new IllegalArgumentException("Unknown conversation field: " + field);
+        };
+    }
+
+    public boolean isEmpty() {
+        return state == null && context == null && listContext == null;
+    }
+
+    /**
+     * @return Суммарный размер значений в байтах.
+     */
+    public int sizeBytes() {
+        return length(state) + length(context) + length(listContext);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+}
@@ -0,0 +1,56 @@
+package com.halcyon.recurix.service.store;
+
+import java.time.Duration;
+import java.util.Map;
+import reactor.core.publisher.Mono;
+
+/**
+ * Хранилище закодированных данных диалогов.
+ * <p>
+ * Реализация выбирается свойством {@code recurix.conversations.store}: {@code redis}
+ * (по умолчанию, общее для всех экземпляров) или {@code memory} (в памяти процесса,
+ * для развертываний из одного экземпляра и тестов).
+ */
+public interface ConversationStateStore {
+
+    /**
+     * Время жизни диалога; продлевается при каждой записи.
+     */
+    Duration TTL = Duration.ofHours(1);
+
+    /**
+     * @param userId ID пользователя.
+     * @return {@code Mono} с полями диалога; {@link ConversationFields#EMPTY}, если диалога нет.
+     */
+    Mono<ConversationFields> load(Long userId);
+
+    /**
+     * Записывает поля, не трогая остальные, и продлевает время жизни диалога.
+     *
+     * @param userId ID пользователя.
+     * @param values Значения по именам полей из {@link ConversationFields}.
+     * @return {@code Mono<Void>}, завершающийся после записи.
+     */
+    Mono<Void> put(Long userId, Map<String, byte[]> values);
+
+    /**
+     * Удаляет одно поле диалога.
+     */
+    Mono<Void> remove(Long userId, String field);
+
+    /**
+     * Удаляет диалог целиком.
+     */
+    Mono<Void> delete(Long userId);
+
+    /**
+     * Атомарно записывает контекст и следующий шаг, если текущий шаг равен ожидаемому.
+     *
+     * @param userId   ID пользователя.
+     * @param expected Ожидаемый текущий шаг или {@code null}, чтобы не проверять его.
+     * @param context  Новый контекст.
+     * @param next     Следующий шаг или {@code null}, чтобы удалить поле шага.
+     * @return {@code Mono} с {@code true}, если переход выполнен.
+     */
+    Mono<Boolean> transition(Long userId, byte[] expected, byte[] context, byte[] next);
+}
@@ -0,0 +1,241 @@
+package com.halcyon.recurix.service.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy.VarExpiration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Хранилище диалогов в памяти процесса для развертываний из одного экземпляра и тестов.
+ * <p>
+ * Записи истекают через {@link #TTL} после последней записи; сроки отслеживает иерархическое
+ * колесо таймеров Caffeine, поэтому истечение не требует обхода всех записей. Объем
+ * ограничен суммарным размером значений {@code recurix.conversations.memory.max-bytes}:
+ * при превышении вытесняются редко используемые диалоги.
+ * <p>
+ * Если задан {@code recurix.conversations.memory.snapshot-path}, при остановке диалоги
+ * сохраняются в файл вместе с оставшимся временем жизни и загружаются при следующем старте,
+ * так что перезапуск не обрывает начатые диалоги.
+ */
+@Component
+@ConditionalOnProperty(name = "recurix.conversations.store", havingValue = "memory")
+@Slf4j
+public class InMemoryConversationStateStore implements ConversationStateStore {
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Примерные накладные расходы на запись: ключ, узел кэша, запись и массивы.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final Cache<Long, ConversationFields> cache;
+    private final VarExpiration<Long, ConversationFields> expiration;
+    private final Path snapshotPath;
+
+    public InMemoryConversationStateStore(
+            MeterRegistry meterRegistry,
+            @Value("${recurix.conversations.memory.max-bytes:67108864}") long maxBytes,
+            @Value("${recurix.conversations.memory.snapshot-path:}") String snapshotPath
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, ConversationFields fields) -> ENTRY_OVERHEAD_BYTES + fields.sizeBytes())
+                .expireAfter(new ExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.expiration = cache.policy().expireVariably().orElseThrow();
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "conversations_memory");
+        Gauge.builder("recurix.conversations.memory.bytes", cache, InMemoryConversationStateStore::weightedSize)
+                .description("Approximate memory held by in-process conversations")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        restoreSnapshot();
+    }
+
+    @Override
+    public Mono<ConversationFields> load(Long userId) {
+        return Mono.fromSupplier(() -> Optional.ofNullable(cache.getIfPresent(userId)).orElse(ConversationFields.EMPTY));
+    }
+
+    @Override
+    public Mono<Void> put(Long userId, Map<String, byte[]> values) {
+        return Mono.fromRunnable(() -> cache.asMap().compute(userId, (id, current) -> {
+            ConversationFields updated = current == null ? ConversationFields.EMPTY : current;
+            for (Map.Entry<String, byte[]> value : values.entrySet()) {
+                updated = updated.with(value.getKey(), value.getValue());
+            }
+            return updated;
+        }));
+    }
+
+    @Override
+    public Mono<Void> remove(Long userId, String field) {
+        return Mono.fromRunnable(() -> cache.asMap().computeIfPresent(userId, (id, current) -> {
+            ConversationFields updated = current.with(field, null);
+            return updated.isEmpty() ? null : updated;
+        }));
+    }
+
+    @Override
+    public Mono<Void> delete(Long userId) {
+        return Mono.fromRunnable(() -> cache.invalidate(userId));
+    }
+
+    @Override
+    public Mono<Boolean> transition(Long userId, byte[] expected, byte[] context, byte[] next) {
+        return Mono.fromSupplier(() -> {
+            AtomicBoolean applied = new AtomicBoolean();
+            cache.asMap().compute(userId, (id, current) -> {
+                ConversationFields fields = current == null ? ConversationFields.EMPTY : current;
+                if (expected != null && !Arrays.equals(expected, fields.state())) {
+                    return current;
+                }
+                applied.set(true);
+                return fields.withContext(context).withState(next);
+            });
+            return applied.get();
+        });
+    }
+
+    /**
+     * Сохраняет диалоги в файл снимка, если он настроен. Файл сначала пишется рядом
+     * и затем переименовывается, поэтому прерванная запись не портит прежний снимок.
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+
+        cache.cleanUp();
+        Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        int written = 0;
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            List<Map.Entry<Long, ConversationFields>> entries = List.copyOf(cache.asMap().entrySet());
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<Long, ConversationFields> entry : entries) {
+                Duration remaining = expiration.getExpiresAfter(entry.getKey()).orElse(Duration.ZERO);
+                out.writeLong(entry.getKey());
+                out.writeLong(remaining.toMillis());
+                writeField(out, entry.getValue().state());
+                writeField(out, entry.getValue().context());
+                writeField(out, entry.getValue().listContext());
+                written++;
+            }
+        } catch (IOException e) {
+            log.error("Failed to write conversation snapshot to {}", snapshotPath, e);
+            return;
+        }
+
+        try {
+            Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved {} conversations to {}", written, snapshotPath);
+        } catch (IOException e) {
+            log.error("Failed to replace conversation snapshot {}", snapshotPath, e);
+        }
+    }
+
+    private void restoreSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+
+        int restored = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                log.warn("Ignoring conversation snapshot {} of unsupported version {}", snapshotPath, version);
+                return;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long userId = in.readLong();
+                Duration remaining = Duration.ofMillis(in.readLong());
+                var fields = new ConversationFields(readField(in), readField(in), readField(in));
+                if (remaining.isPositive() && !fields.isEmpty()) {
+                    expiration.put(userId, fields, remaining);
+                    restored++;
+                }
+            }
+            log.info("Restored {} conversations from {}", restored, snapshotPath);
+        } catch (IOException e) {
+            log.error("Failed to read conversation snapshot {}; starting empty", snapshotPath, e);
+            cache.invalidateAll();
+        }
+    }
+
+    private static void writeField(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readField(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    private static double weightedSize(Cache<Long, ConversationFields> cache) {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    /**
+     * Срок жизни отсчитывается от последней записи; чтения его не продлевают, как и в Redis.
+     */
+    private static final class ExpireAfterWrite implements Expiry<Long, ConversationFields> {
+
+        @Override
+        public long expireAfterCreate(Long userId, ConversationFields fields, long currentTime) {
+            return TTL.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, ConversationFields fields, long currentTime, long currentDuration) {
+            return TTL.toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, ConversationFields fields, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
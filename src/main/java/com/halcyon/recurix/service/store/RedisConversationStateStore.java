@@ -0,0 +1,125 @@
+package com.halcyon.recurix.service.store;
+
+import com.halcyon.recurix.cache.ConversationNearCache;
+import com.halcyon.recurix.config.RedisCommandProperties;
+import com.halcyon.recurix.support.RedisCommandMetrics;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Хранилище диалогов в Redis.
+ * <p>
+ * Все части диалога — поля одного хэша {@code conversation:{userId}} с общим TTL.
+ * Диалог читается одной командой {@code HMGET} и удаляется одной командой {@code DEL},
+ * а переход между шагами выполняется Lua-скриптом {@code redis/conversation-transition.lua}.
+ * Чтения обслуживаются через {@link ConversationNearCache}, поэтому шаги диалога,
+ * которые обрабатывает один экземпляр, обращаются к Redis только для записи.
+ * <p>
+ * Каждая команда выполняется с таймаутом из {@link RedisCommandProperties}
+ * и измеряется {@link RedisCommandMetrics} с префиксом {@code conversation}. Если запись
+ * завершилась ошибкой (в том числе по таймауту), исход в Redis неизвестен, и запись
+ * near-cache этого пользователя удаляется.
+ */
+@Component
+@ConditionalOnProperty(name = "recurix.conversations.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedisConversationStateStore implements ConversationStateStore {
+
+    private static final RedisScript<Long> TRANSITION_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/conversation-transition.lua"), Long.class);
+    private static final byte[] NO_VALUE = new byte[0];
+    private static final String KEY_PREFIX = "conversation";
+    private static final String ALL_FIELDS = "all";
+
+    private final ReactiveRedisTemplate<String, byte[]> conversationTemplate;
+    private final ConversationNearCache nearCache;
+    private final RedisCommandMetrics commandMetrics;
+    private final RedisCommandProperties commandProperties;
+
+    private String conversationKey(Long userId) {
+        return KEY_PREFIX + ":" + userId;
+    }
+
+    private ReactiveHashOperations<String, String, byte[]> hash() {
+        return conversationTemplate.opsForHash();
+    }
+
+    @Override
+    public Mono<ConversationFields> load(Long userId) {
+        return nearCache.get(userId, () -> commandMetrics.record(
+                "HMGET", KEY_PREFIX, ALL_FIELDS, commandProperties.getReadTimeout(),
+                hash().multiGet(conversationKey(userId), List.of(
+                        ConversationFields.STATE, ConversationFields.CONTEXT, ConversationFields.LIST_CONTEXT)))
+                .map(values -> new ConversationFields(values.get(0), values.get(1), values.get(2))));
+    }
+
+    /**
+     * Команды {@code HSET} и {@code EXPIRE} уходят по общему соединению друг за другом,
+     * не дожидаясь ответа на первую.
+     */
+    @Override
+    public Mono<Void> put(Long userId, Map<String, byte[]> values) {
+        String key = conversationKey(userId);
+        String field = values.size() == 1 ? values.keySet().iterator().next() : ALL_FIELDS;
+
+        return commandMetrics.record("HSET", KEY_PREFIX, field, commandProperties.getWriteTimeout(), Mono.when(
+                hash().putAll(key, values),
+                conversationTemplate.expire(key, TTL)))
+                .doOnError(e -> nearCache.invalidate(userId))
+                .then(nearCache.written(userId, fields -> {
+                    ConversationFields updated = fields;
+                    for (Map.Entry<String, byte[]> value : values.entrySet()) {
+                        updated = updated.with(value.getKey(), value.getValue());
+                    }
+                    return updated;
+                }));
+    }
+
+    @Override
+    public Mono<Void> remove(Long userId, String field) {
+        return commandMetrics.record("HDEL", KEY_PREFIX, field, commandProperties.getWriteTimeout(),
+                hash().remove(conversationKey(userId), field))
+                .doOnError(e -> nearCache.invalidate(userId))
+                .then(nearCache.written(userId, fields -> fields.with(field, null)));
+    }
+
+    @Override
+    public Mono<Void> delete(Long userId) {
+        return commandMetrics.record("DEL", KEY_PREFIX, ALL_FIELDS, commandProperties.getWriteTimeout(),
+                conversationTemplate.delete(conversationKey(userId)))
+                .doOnError(e -> nearCache.invalidate(userId))
+                .then(nearCache.written(userId, fields -> ConversationFields.EMPTY));
+    }
+
+    @Override
+    public Mono<Boolean> transition(Long userId, byte[] expected, byte[] context, byte[] next) {
+        List<byte[]> args = List.of(
+                expected == null ? NO_VALUE : expected,
+                next == null ? NO_VALUE : next,
+                context,
+                Long.toString(TTL.toSeconds()).getBytes(StandardCharsets.US_ASCII));
+        UnaryOperator<ConversationFields> update = fields -> fields.withContext(context).withState(next);
+
+        return commandMetrics.record("EVALSHA", KEY_PREFIX, ConversationFields.STATE, commandProperties.getScriptTimeout(),
+                conversationTemplate.execute(TRANSITION_SCRIPT, List.of(conversationKey(userId)), args).next())
+                .doOnError(e -> nearCache.invalidate(userId))
+                .map(result -> result == 1L)
+                .flatMap(applied -> {
+                    if (!applied) {
+                        nearCache.invalidate(userId);
+                        return Mono.just(false);
+                    }
+                    return nearCache.written(userId, update).thenReturn(true);
+                });
+    }
+}
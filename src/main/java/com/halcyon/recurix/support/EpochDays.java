@@ -0,0 +1,88 @@
+package com.halcyon.recurix.support;
+
+/**
+ * Календарная арифметика над днями эпохи ({@link java.time.LocalDate#toEpochDay()}) без объектов {@code java.time}.
+ * <p>
+ * Месяц кодируется одним числом {@code year * 12 + (month - 1)}, поэтому сдвиг на
+ * N месяцев — это сложение. Преобразования используют алгоритм Говарда Хиннанта
+ * для пролептического григорианского календаря и совпадают с {@code java.time}.
+ */
+public final class EpochDays {
+
+    private static final int DAYS_0000_TO_1970 = 719_468;
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private EpochDays() {}
+
+    /**
+     * @return День эпохи для указанной даты.
+     */
+    public static long of(long year, int month, int dayOfMonth) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + dayOfMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * @return Индекс месяца ({@code year * 12 + month - 1}), в который попадает день.
+     */
+    public static long monthIndex(long epochDay) {
+        long[] civil = civil(epochDay);
+        return civil[0] * 12 + civil[1] - 1;
+    }
+
+    /**
+     * @return День месяца (1..31) для дня эпохи.
+     */
+    public static int dayOfMonth(long epochDay) {
+        return (int) civil(epochDay)[2];
+    }
+
+    /**
+     * Возвращает день эпохи для дня месяца в месяце с указанным индексом.
+     * Если в месяце меньше дней, берется последний день месяца — как в {@link java.time.LocalDate#plusMonths(long)}.
+     *
+     * @param monthIndex Индекс месяца.
+     * @param dayOfMonth Желаемый день месяца.
+     * @return День эпохи.
+     */
+    public static long atMonth(long monthIndex, int dayOfMonth) {
+        long year = Math.floorDiv(monthIndex, 12);
+        int month = (int) Math.floorMod(monthIndex, 12) + 1;
+        return of(year, month, Math.min(dayOfMonth, lengthOfMonth(year, month)));
+    }
+
+    /**
+     * @return Количество дней в месяце.
+     */
+    public static int lengthOfMonth(long year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * @return {@code [год, месяц, день]} для дня эпохи.
+     */
+    private static long[] civil(long epochDay) {
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, DAYS_PER_ERA);
+        long dayOfEra = z - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return new long[] {year, month, day};
+    }
+}
@@ -0,0 +1,133 @@
+package com.halcyon.recurix.support;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Денежная сумма в минимальных единицах валюты (копейках).
+ * <p>
+ * Сложение, сравнение и доли считаются на {@code long} без промежуточных {@link BigDecimal};
+ * в {@link BigDecimal} сумма переводится только при записи в БД и форматировании.
+ * Все цены в боте рублевые, поэтому валюта по умолчанию — {@link #RUB}.
+ *
+ * @param minorUnits Сумма в минимальных единицах.
+ * @param currency   Валюта.
+ */
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+
+    public static final Currency RUB = Currency.getInstance("RUB");
+
+    /**
+     * Количество знаков дробной части в хранимых ценах.
+     */
+    public static final int MINOR_UNITS_SCALE = 2;
+
+    public static final Money ZERO = new Money(0, RUB);
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    /**
+     * @param amount Сумма в рублях; {@code null} считается нулем.
+     * @return Сумма в минимальных единицах.
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinor(toMinorUnits(amount));
+    }
+
+    /**
+     * @param minorUnits Сумма в копейках.
+     * @return Рублевая сумма.
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits, RUB);
+    }
+
+    /**
+     * Переводит цену в минимальные единицы валюты с округлением до копейки.
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount == null
+                ? 0
+                : amount.movePointRight(MINOR_UNITS_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Переводит сумму в минимальных единицах обратно в {@link BigDecimal}.
+     */
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, MINOR_UNITS_SCALE);
+    }
+
+    public Money plus(Money other) {
+        return withMinorUnits(Math.addExact(minorUnits, sameCurrency(other).minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return withMinorUnits(Math.subtractExact(minorUnits, sameCurrency(other).minorUnits));
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    /**
+     * Доля суммы в {@code total}, в процентах с округлением до целого.
+     *
+     * @param total Общая сумма.
+     * @return Процент; {@code 0}, если общая сумма не положительна.
+     */
+    public long percentOf(Money total) {
+        return shareOf(total, 100);
+    }
+
+    /**
+     * Доля суммы в {@code total}, умноженная на {@code scale}, с округлением половины вверх.
+     * Например, {@code scale = 1000} дает доли в десятых процента.
+     *
+     * @param total Общая сумма.
+     * @param scale Множитель.
+     * @return Доля; {@code 0}, если общая сумма не положительна.
+     */
+    public long shareOf(Money total, long scale) {
+        if (sameCurrency(total).minorUnits <= 0) {
+            return 0;
+        }
+        long doubledTotal = Math.multiplyExact(total.minorUnits, 2);
+        return Math.floorDiv(Math.addExact(Math.multiplyExact(minorUnits, 2 * scale), total.minorUnits), doubledTotal);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return fromMinorUnits(minorUnits);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, sameCurrency(other).minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    private Money withMinorUnits(long amount) {
+        return currency.equals(RUB) ? ofMinor(amount) : new Money(amount, currency);
+    }
+
+    private Money sameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+        return other;
+    }
+}
@@ -0,0 +1,53 @@
+package com.halcyon.recurix.support;
+
+import java.time.LocalDate;
+
+/**
+ * Утилиты для вычисления дат платежей регулярных подписок.
+ * <p>
+ * Логика совпадает с SQL-функцией {@code effective_payment_date}, чтобы даты,
+ * вычисленные в БД и в приложении, не расходились. Сама арифметика общая
+ * с {@link SpendingProjection}.
+ */
+public final class PaymentDates {
+
+    private PaymentDates() {}
+
+    /**
+     * Вычисляет ближайшую дату платежа, не раньше указанной даты.
+     * <p>
+     * Если опорная дата уже не раньше {@code onDate} или период продления не задан,
+     * возвращается опорная дата без изменений.
+     *
+     * @param anchor        Хранимая (опорная) дата платежа.
+     * @param renewalMonths Период продления в месяцах.
+     * @param onDate        Дата, относительно которой ищется ближайший платеж.
+     * @return Ближайшая дата платежа.
+     */
+    public static LocalDate effective(LocalDate anchor, Integer renewalMonths, LocalDate onDate) {
+        if (anchor == null || renewalMonths == null || renewalMonths <= 0 || !anchor.isBefore(onDate)) {
+            return anchor;
+        }
+
+        return LocalDate.ofEpochDay(
+                SpendingProjection.nextOnOrAfter(anchor.toEpochDay(), renewalMonths, onDate.toEpochDay()));
+    }
+
+    /**
+     * Вычисляет ближайший платеж не раньше указанной даты, если он есть.
+     * <p>
+     * В отличие от {@link #effective}, разовая подписка с прошедшей датой платежей впереди
+     * не имеет, поэтому для нее возвращается {@code null}. Так выбирается «следующий платеж»:
+     * прошедший разовый платеж следующим не считается.
+     *
+     * @param anchor        Хранимая (опорная) дата платежа.
+     * @param renewalMonths Период продления в месяцах.
+     * @param onDate        Дата, начиная с которой ищется платеж.
+     * @return Дата платежа не раньше {@code onDate} или {@code null}, если такого платежа нет.
+     */
+    public static LocalDate upcoming(LocalDate anchor, Integer renewalMonths, LocalDate onDate) {
+        LocalDate paymentDate = effective(anchor, renewalMonths, onDate);
+
+        return paymentDate == null || paymentDate.isBefore(onDate) ? null : paymentDate;
+    }
+}
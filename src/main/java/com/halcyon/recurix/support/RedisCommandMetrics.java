@@ -0,0 +1,77 @@
+package com.halcyon.recurix.support;
+
+import com.halcyon.recurix.config.RedisCommandProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Измеряет команды Redis с точки зрения приложения.
+ * <p>
+ * Время команды записывается в таймер {@code recurix.redis.command} с тегами
+ * {@code command}, {@code prefix} (префикс ключа), {@code field} (поле хэша или {@code all})
+ * и {@code outcome} ({@code success}, {@code error} или {@code timeout}). Команды дольше
+ * {@code recurix.redis.slow-command-threshold} пишутся в журнал предупреждением.
+ * <p>
+ * В отличие от встроенных метрик Lettuce ({@code lettuce.command.*}), здесь видно,
+ * к каким данным относится команда и сколько ее ждал обработчик, включая очередь соединения.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisCommandMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final RedisCommandProperties properties;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Выполняет команду с таймаутом и записывает ее время.
+     *
+     * @param command   Команда Redis, например {@code HMGET}.
+     * @param prefix    Префикс ключа, например {@code conversation}.
+     * @param field     Поле хэша или {@code all}.
+     * @param timeout   Таймаут команды.
+     * @param operation Команда.
+     * @return {@code Mono} с результатом; ошибка {@link TimeoutException}, если команда не успела.
+     */
+    public <T> Mono<T> record(String command, String prefix, String field, Duration timeout, Mono<T> operation) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+
+            return operation.timeout(timeout)
+                    .doOnSuccess(result -> stop(command, prefix, field, "success", start))
+                    .doOnError(e -> stop(command, prefix, field, e instanceof TimeoutException ? "timeout" : "error", start));
+        });
+    }
+
+    private void stop(String command, String prefix, String field, String outcome, long start) {
+        long elapsed = System.nanoTime() - start;
+        timer(command, prefix, field, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+
+        if (elapsed > properties.getSlowCommandThreshold().toNanos()) {
+            log.warn("Slow Redis command {} on {}:{} ({}) took {} ms",
+                    command, prefix, field, outcome, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    private Timer timer(String command, String prefix, String field, String outcome) {
+        return timers.computeIfAbsent(command + '|' + prefix + '|' + field + '|' + outcome,
+                id -> Timer.builder("recurix.redis.command")
+                        .description("Latency of Redis commands issued by the application")
+                        .tag("command", command)
+                        .tag("prefix", prefix)
+                        .tag("field", field)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+}
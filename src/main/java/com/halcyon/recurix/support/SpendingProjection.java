@@ -0,0 +1,153 @@
+package com.halcyon.recurix.support;
+
+import com.halcyon.recurix.model.Subscription;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Проекция платежей портфеля подписок на произвольный период.
+ * <p>
+ * Каждая подписка разворачивается в платежи по опорной дате и периоду продления:
+ * k-й платеж приходится на {@code paymentDate + k * renewalMonths} месяцев (с поправкой
+ * на длину месяца, как у {@link LocalDate#plusMonths(long)}). Подписка с непустым
+ * периодом, но с неположительным значением, платит один раз в опорную дату.
+ * <p>
+ * Портфель хранится в примитивных массивах (индексы месяцев, дни эпохи, суммы в
+ * копейках), поэтому проекция не создает объектов на платеж. Суммы возвращаются
+ * в минимальных единицах валюты (см. {@link Money}).
+ */
+public final class SpendingProjection {
+
+    /**
+     * Обработчик платежа: индекс подписки в проекции и день эпохи платежа.
+     */
+    @FunctionalInterface
+    public interface OccurrenceConsumer {
+        void accept(int index, long epochDay);
+    }
+
+    private final long[] subscriptionIds;
+    private final long[] anchorMonths;
+    private final int[] anchorDaysOfMonth;
+    private final int[] renewalMonths;
+    private final long[] amounts;
+
+    private SpendingProjection(int size) {
+        this.subscriptionIds = new long[size];
+        this.anchorMonths = new long[size];
+        this.anchorDaysOfMonth = new int[size];
+        this.renewalMonths = new int[size];
+        this.amounts = new long[size];
+    }
+
+    /**
+     * Строит проекцию по подпискам. Подписки без даты платежа пропускаются.
+     *
+     * @param subscriptions Подписки пользователя.
+     * @return Проекция.
+     */
+    public static SpendingProjection of(Collection<Subscription> subscriptions) {
+        SpendingProjection projection = new SpendingProjection(
+                (int) subscriptions.stream().filter(s -> s.getPaymentDate() != null).count());
+
+        int index = 0;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.getPaymentDate() == null) {
+                continue;
+            }
+
+            long anchorDay = subscription.getPaymentDate().toEpochDay();
+            projection.subscriptionIds[index] = subscription.getId() == null ? 0 : subscription.getId();
+            projection.anchorMonths[index] = EpochDays.monthIndex(anchorDay);
+            projection.anchorDaysOfMonth[index] = EpochDays.dayOfMonth(anchorDay);
+            projection.renewalMonths[index] = subscription.getRenewalMonths() == null ? 0 : subscription.getRenewalMonths();
+            projection.amounts[index] = Money.toMinorUnits(subscription.getPrice());
+            index++;
+        }
+        return projection;
+    }
+
+    /**
+     * @return Количество подписок в проекции.
+     */
+    public int size() {
+        return amounts.length;
+    }
+
+    /**
+     * @return ID подписки по ее индексу в проекции.
+     */
+    public long subscriptionId(int index) {
+        return subscriptionIds[index];
+    }
+
+    /**
+     * @return Сумма платежа подписки в минимальных единицах валюты.
+     */
+    public long amount(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Перебирает все платежи в периоде {@code [fromDay, toDay]}: сначала по подпискам, затем по времени.
+     *
+     * @param fromDay  Первый день периода (день эпохи).
+     * @param toDay    Последний день периода включительно.
+     * @param consumer Обработчик платежа.
+     */
+    public void forEachOccurrence(long fromDay, long toDay, OccurrenceConsumer consumer) {
+        for (int i = 0; i < amounts.length; i++) {
+            long day = nextOccurrence(i, fromDay);
+            while (day <= toDay) {
+                consumer.accept(i, day);
+                if (renewalMonths[i] <= 0) {
+                    break;
+                }
+                day = nextOccurrence(i, day + 1);
+            }
+        }
+    }
+
+    /**
+     * Возвращает ближайший платеж подписки не раньше указанного дня.
+     * <p>
+     * Дата вычисляется через {@link #nextOnOrAfter(long, int, long)}; отличается только
+     * разовая подписка с прошедшей датой: у нее платежей в периоде нет.
+     *
+     * @param index Индекс подписки в проекции.
+     * @param onDay День эпохи.
+     * @return День эпохи платежа или {@link Long#MAX_VALUE}, если платежей не раньше {@code onDay} нет.
+     */
+    private long nextOccurrence(int index, long onDay) {
+        long day = nextOnOrAfter(EpochDays.atMonth(anchorMonths[index], anchorDaysOfMonth[index]), renewalMonths[index], onDay);
+        return day >= onDay ? day : Long.MAX_VALUE;
+    }
+
+    /**
+     * Вычисляет ближайшую дату платежа не раньше {@code onDay}, как SQL-функция {@code effective_payment_date}.
+     * <p>
+     * Если опорная дата уже не раньше {@code onDay} или период не положителен, возвращается опорная дата —
+     * в том числе прошедшая дата разовой подписки, которую списки и экраны показывают как есть.
+     * Для перебора платежей периода это значит «платежей нет» (см. {@link #forEachOccurrence}).
+     *
+     * @param anchorDay     Опорная дата (день эпохи).
+     * @param renewalMonths Период продления в месяцах.
+     * @param onDay         День эпохи, от которого ищется платеж.
+     * @return День эпохи ближайшего платежа.
+     */
+    public static long nextOnOrAfter(long anchorDay, int renewalMonths, long onDay) {
+        if (renewalMonths <= 0 || anchorDay >= onDay) {
+            return anchorDay;
+        }
+        return nextOnOrAfter(EpochDays.monthIndex(anchorDay), EpochDays.dayOfMonth(anchorDay), renewalMonths, onDay);
+    }
+
+    private static long nextOnOrAfter(long anchorMonth, int anchorDayOfMonth, int renewalMonths, long onDay) {
+        long periods = Math.max(0, Math.ceilDiv(EpochDays.monthIndex(onDay) - anchorMonth, renewalMonths));
+        long candidate = EpochDays.atMonth(anchorMonth + periods * renewalMonths, anchorDayOfMonth);
+
+        return candidate < onDay
+                ? EpochDays.atMonth(anchorMonth + (periods + 1) * renewalMonths, anchorDayOfMonth)
+                : candidate;
+    }
+}
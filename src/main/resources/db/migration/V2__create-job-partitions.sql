@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS job_partitions
+(
+    job_name          VARCHAR(100) NOT NULL,
+    run_date          DATE         NOT NULL,
+    partition_no      INT          NOT NULL,
+    partition_count   INT          NOT NULL,
+    status            VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    last_processed_id BIGINT       NOT NULL DEFAULT 0,
+    processed_count   BIGINT       NOT NULL DEFAULT 0,
+    claimed_by        VARCHAR(255),
+    claimed_at        TIMESTAMP WITH TIME ZONE,
+    finished_at       TIMESTAMP WITH TIME ZONE,
+
+    CONSTRAINT pk_job_partitions PRIMARY KEY (job_name, run_date, partition_no)
+);
+
+CREATE INDEX IF NOT EXISTS idx_job_partitions_status ON job_partitions (job_name, run_date, status);
+
+CREATE INDEX IF NOT EXISTS idx_subscriptions_payment_date ON subscriptions (payment_date);
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS job_runs
+(
+    job_name      VARCHAR(100)             PRIMARY KEY,
+    last_run_date DATE                     NOT NULL,
+    completed_at  TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,20 @@
+CREATE OR REPLACE FUNCTION effective_payment_date(anchor DATE, renewal_months INT, on_date DATE)
+RETURNS DATE
+LANGUAGE sql
+IMMUTABLE
+PARALLEL SAFE
+AS $$
+    SELECT CASE
+        WHEN anchor >= on_date OR renewal_months IS NULL OR renewal_months <= 0 THEN anchor
+        WHEN CAST(anchor + make_interval(months => p.periods * renewal_months) AS DATE) < on_date
+            THEN CAST(anchor + make_interval(months => (p.periods + 1) * renewal_months) AS DATE)
+        ELSE CAST(anchor + make_interval(months => p.periods * renewal_months) AS DATE)
+    END
+    FROM (
+        SELECT CAST(CEIL(((EXTRACT(YEAR FROM on_date) - EXTRACT(YEAR FROM anchor)) * 12
+            + EXTRACT(MONTH FROM on_date) - EXTRACT(MONTH FROM anchor)) / GREATEST(renewal_months, 1)) AS INT) AS periods
+    ) p
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_subscriptions_payment_day
+    ON subscriptions (CAST(EXTRACT(DAY FROM payment_date) AS INTEGER));
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS sent_reminders
+(
+    subscription_id BIGINT NOT NULL,
+    payment_date    DATE NOT NULL,
+    sent_at         TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+    PRIMARY KEY (subscription_id, payment_date),
+
+    CONSTRAINT fk_sent_reminders_subscription
+    FOREIGN KEY (subscription_id)
+    REFERENCES subscriptions (id)
+    ON DELETE CASCADE
+);
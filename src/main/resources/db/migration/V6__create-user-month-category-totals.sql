@@ -0,0 +1,34 @@
+CREATE TABLE IF NOT EXISTS user_month_category_totals
+(
+    user_id  BIGINT NOT NULL,
+    month    DATE NOT NULL,
+    category VARCHAR(100) NOT NULL DEFAULT '',
+    total    DECIMAL(14, 2) NOT NULL,
+    payments INT NOT NULL,
+
+    PRIMARY KEY (user_id, month, category),
+
+    CONSTRAINT fk_user_month_category_totals_user
+    FOREIGN KEY (user_id)
+    REFERENCES users (id)
+    ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS user_month_totals_coverage
+(
+    id          BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    until_month DATE NOT NULL
+);
+
+INSERT INTO user_month_totals_coverage (until_month)
+VALUES (CAST(date_trunc('month', CURRENT_DATE) + INTERVAL '24 months' AS DATE))
+ON CONFLICT DO NOTHING;
+
+INSERT INTO user_month_category_totals (user_id, month, category, total, payments)
+SELECT s.user_id, CAST(m.month AS DATE), COALESCE(s.category, ''), SUM(s.price), COUNT(*)
+FROM user_month_totals_coverage c
+CROSS JOIN subscriptions s
+CROSS JOIN LATERAL generate_series(date_trunc('month', s.payment_date), c.until_month, INTERVAL '1 month') AS m (month)
+WHERE effective_payment_date(s.payment_date, s.renewal_months, CAST(m.month AS DATE))
+    BETWEEN CAST(m.month AS DATE) AND CAST(m.month + INTERVAL '1 month' - INTERVAL '1 day' AS DATE)
+GROUP BY s.user_id, m.month, COALESCE(s.category, '');
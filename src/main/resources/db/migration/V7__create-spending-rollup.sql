@@ -0,0 +1,18 @@
+CREATE MATERIALIZED VIEW IF NOT EXISTS spending_rollup AS
+SELECT month,
+       GROUPING(category) = 1 AS all_categories,
+       COALESCE(category, '') AS category,
+       user_bucket,
+       COUNT(DISTINCT user_id) AS users,
+       SUM(payments) AS payments,
+       SUM(total) AS total
+FROM (
+    SELECT month, category, user_id, payments, total,
+           CAST(mod(user_id, 32) AS INT) AS user_bucket
+    FROM user_month_category_totals
+) AS totals
+GROUP BY GROUPING SETS ((month, user_bucket, category), (month, user_bucket))
+WITH DATA;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_spending_rollup_key
+    ON spending_rollup (month, all_categories, category, user_bucket);
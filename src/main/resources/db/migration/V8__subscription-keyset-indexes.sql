@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_subscriptions_user_price_id ON subscriptions (user_id, price, id);
@@ -0,0 +1,29 @@
+-- Атомарный переход диалога: проверка текущего шага, запись контекста и нового шага.
+--
+-- KEYS[1] — хэш диалога conversation:{userId}
+-- ARGV[1] — ожидаемый текущий шаг; пустая строка — без проверки
+-- ARGV[2] — новый шаг; пустая строка — удалить поле state
+-- ARGV[3] — закодированный контекст; пустая строка — не менять
+-- ARGV[4] — TTL хэша в секундах
+--
+-- Возвращает 1, если переход выполнен, и 0, если текущий шаг не совпал с ожидаемым.
+
+if ARGV[1] ~= '' and redis.call('HGET', KEYS[1], 'state') ~= ARGV[1] then
+    return 0
+end
+
+if ARGV[3] ~= '' then
+    redis.call('HSET', KEYS[1], 'context', ARGV[3])
+end
+
+if ARGV[2] ~= '' then
+    redis.call('HSET', KEYS[1], 'state', ARGV[2])
+else
+    redis.call('HDEL', KEYS[1], 'state')
+end
+
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('EXPIRE', KEYS[1], ARGV[4])
+end
+
+return 1
@@ -0,0 +1,58 @@
+package com.halcyon.recurix.chart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.halcyon.recurix.dto.CategorySpendingDto;
+import com.halcyon.recurix.support.Money;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Модульные тесты для отрисовки диаграмм {@link CategoryChartRenderer}.
+ */
+class CategoryChartRendererTest {
+
+    @Test
+    @DisplayName("Должен давать одинаковый хэш для равных сумм с разным масштабом")
+    void shouldNormalizeAmountsInHash() {
+        String hash = CategoryChartRenderer.contentHash(List.of(category("Музыка", "100.00"), category(null, "9.9")));
+        String sameHash = CategoryChartRenderer.contentHash(List.of(category("Музыка", "100"), category(null, "9.90")));
+
+        assertThat(hash).isEqualTo(sameHash).hasSize(64);
+    }
+
+    @Test
+    @DisplayName("Должен учитывать порядок и состав категорий в хэше")
+    void shouldDistinguishDifferentContent() {
+        List<CategorySpendingDto> categories = List.of(category("Музыка", "100"), category("Кино", "50"));
+
+        assertThat(CategoryChartRenderer.contentHash(categories))
+                .isNotEqualTo(CategoryChartRenderer.contentHash(categories.reversed()))
+                .isNotEqualTo(CategoryChartRenderer.contentHash(List.of(category("Музыка", "100"), category("Кино", "51"))));
+    }
+
+    @Test
+    @DisplayName("Должен рисовать PNG заданного размера, в том числе для множества категорий")
+    void shouldRenderPng() throws IOException {
+        List<CategorySpendingDto> categories = IntStream.range(0, 12)
+                .mapToObj(i -> category(i == 0 ? null : "Категория " + i, String.valueOf(100 - i)))
+                .toList();
+
+        byte[] png = CategoryChartRenderer.render(categories, "Без категории", "Прочее");
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+
+        assertThat(image.getWidth()).isEqualTo(CategoryChartRenderer.WIDTH);
+        assertThat(image.getHeight()).isEqualTo(CategoryChartRenderer.HEIGHT);
+    }
+
+    private static CategorySpendingDto category(String name, String total) {
+        return new CategorySpendingDto(name, Money.of(new BigDecimal(total)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.halcyon.recurix.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Модульные тесты для фильтра доступа к actuator {@link ManagementAccessFilter}.
+ */
+class ManagementAccessFilterTest {
+
+    private final ManagementAccessFilter filter = new ManagementAccessFilter("/actuator", "secret");
+
+    @Test
+    @DisplayName("Должен пропускать health без токена")
+    void shouldPassHealthWithoutToken() {
+        assertThat(passes(filter, MockServerHttpRequest.get("/actuator/health/liveness"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Должен отклонять закрытый эндпоинт без токена или с неверным токеном")
+    void shouldRejectWithoutValidToken() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/actuator/spendingrollup"));
+
+        assertThat(passes(filter, exchange)).isFalse();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(passes(filter, MockServerHttpRequest.get("/actuator/metrics")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer wrong"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Должен пропускать закрытый эндпоинт с верным токеном и не трогать остальные пути")
+    void shouldPassValidTokenAndOtherPaths() {
+        assertThat(passes(filter, MockServerHttpRequest.get("/actuator/spendingrollup")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer secret"))).isTrue();
+        assertThat(passes(filter, MockServerHttpRequest.post("/"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Должен закрывать эндпоинты полностью, если токен не задан")
+    void shouldRejectEverythingWithoutConfiguredToken() {
+        var unconfigured = new ManagementAccessFilter("/actuator", "");
+
+        assertThat(passes(unconfigured, MockServerHttpRequest.get("/actuator/metrics")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer "))).isFalse();
+        assertThat(passes(unconfigured, MockServerHttpRequest.get("/actuator/health"))).isTrue();
+    }
+
+    private static boolean passes(ManagementAccessFilter filter, MockServerHttpRequest.BaseBuilder<?> request) {
+        return passes(filter, MockServerWebExchange.from(request));
+    }
+
+    private static boolean passes(ManagementAccessFilter filter, MockServerWebExchange exchange) {
+        AtomicBoolean passed = new AtomicBoolean();
+        WebFilterChain chain = filtered -> {
+            passed.set(true);
+            return Mono.empty();
+        };
+
+        filter.filter(exchange, chain).block();
+        return passed.get();
+    }
+}
@@ -0,0 +1,61 @@
+package com.halcyon.recurix.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.halcyon.recurix.job.DueDateIndex.Action;
+import com.halcyon.recurix.job.DueDateIndex.DueEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Модульные тесты для очереди сроков {@link DueDateIndex}.
+ */
+class DueDateIndexTest {
+
+    private final DueDateIndex index = new DueDateIndex();
+
+    @Test
+    @DisplayName("Должен извлекать только наступившие сроки в порядке дней")
+    void shouldPollDueEntriesInOrder() {
+        index.add(3, 20_003, Action.REMINDER);
+        index.add(1, 20_001, Action.RENEWAL);
+        index.add(2, 20_002, Action.REMINDER);
+
+        assertThat(index.pollDue(20_002)).containsExactly(
+                new DueEntry(1, 20_001, Action.RENEWAL),
+                new DueEntry(2, 20_002, Action.REMINDER));
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен возвращать повторно запланированную запись один раз")
+    void shouldCollapseDuplicates() {
+        index.add(7, 20_000, Action.REMINDER);
+        index.add(7, 20_000, Action.REMINDER);
+
+        assertThat(index.pollDue(20_000)).containsExactly(new DueEntry(7, 20_000, Action.REMINDER));
+    }
+
+    @Test
+    @DisplayName("Должен удалять все записи подписки")
+    void shouldRemoveSubscription() {
+        for (long id = 1; id <= 5_000; id++) {
+            index.add(id, 20_000 + id % 30, Action.REMINDER);
+            index.add(id, 20_000 + id % 30, Action.RENEWAL);
+        }
+
+        assertThat(index.remove(42)).isEqualTo(2);
+        assertThat(index.pollDue(Long.MAX_VALUE >>> 41))
+                .hasSize(9_998)
+                .noneMatch(entry -> entry.subscriptionId() == 42)
+                .isSortedAccordingTo((a, b) -> Long.compare(a.epochDay(), b.epochDay()));
+    }
+
+    @Test
+    @DisplayName("Должен отклонять ID, не помещающийся в упакованную запись")
+    void shouldRejectOversizedId() {
+        assertThatThrownBy(() -> index.add(1L << 40, 20_000, Action.REMINDER))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
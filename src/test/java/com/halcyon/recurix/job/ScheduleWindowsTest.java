@@ -0,0 +1,64 @@
+package com.halcyon.recurix.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Модульные тесты для утилитарного класса {@link ScheduleWindows}.
+ */
+class ScheduleWindowsTest {
+
+    private static final String CRON = "0 0 9 * * *";
+    private static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+    private static final Duration LOOK_BACK = Duration.ofDays(3);
+
+    @Test
+    @DisplayName("Должен вернуть пустой список, если сегодняшний запуск уже выполнен")
+    void shouldReturnNothingWhenTodayAlreadyRan() {
+        ZonedDateTime now = ZonedDateTime.of(2025, 3, 10, 12, 0, 0, 0, ZONE);
+
+        List<LocalDate> missed = ScheduleWindows.missedRunDates(CRON, ZONE, LocalDate.of(2025, 3, 10), now, LOOK_BACK);
+
+        assertThat(missed).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Должен вернуть пропущенные окна по порядку, включая сегодняшнее")
+    void shouldReturnMissedWindowsInOrder() {
+        ZonedDateTime now = ZonedDateTime.of(2025, 3, 10, 12, 0, 0, 0, ZONE);
+
+        List<LocalDate> missed = ScheduleWindows.missedRunDates(CRON, ZONE, LocalDate.of(2025, 3, 8), now, LOOK_BACK);
+
+        assertThat(missed).containsExactly(LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 10));
+    }
+
+    @Test
+    @DisplayName("Не должен включать сегодняшнее окно, если его время еще не наступило")
+    void shouldSkipTodayWindowBeforeItsTime() {
+        ZonedDateTime now = ZonedDateTime.of(2025, 3, 10, 8, 0, 0, 0, ZONE);
+
+        List<LocalDate> missed = ScheduleWindows.missedRunDates(CRON, ZONE, LocalDate.of(2025, 3, 8), now, LOOK_BACK);
+
+        assertThat(missed).containsExactly(LocalDate.of(2025, 3, 9));
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать поиск пропущенных окон глубиной look-back")
+    void shouldBoundMissedWindowsByLookBack() {
+        ZonedDateTime now = ZonedDateTime.of(2025, 3, 10, 12, 0, 0, 0, ZONE);
+
+        List<LocalDate> missed = ScheduleWindows.missedRunDates(CRON, ZONE, LocalDate.of(2025, 2, 1), now, LOOK_BACK);
+
+        assertThat(missed).containsExactly(
+                LocalDate.of(2025, 3, 8),
+                LocalDate.of(2025, 3, 9),
+                LocalDate.of(2025, 3, 10));
+    }
+}
@@ -0,0 +1,95 @@
+package com.halcyon.recurix.repository.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.halcyon.recurix.event.SubscriptionDeletedEvent;
+import com.halcyon.recurix.event.SubscriptionSavedEvent;
+import com.halcyon.recurix.model.Subscription;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Модульные тесты для маршрутизации чтений {@link ReadRouting}.
+ */
+class ReadRoutingTest {
+
+    private ReadReplica replica;
+    private ReadRouting readRouting;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        replica = mock(ReadReplica.class);
+        when(replica.getMaxLag()).thenReturn(Duration.ofSeconds(30));
+
+        ObjectProvider<ReadReplica> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(replica);
+        readRouting = new ReadRouting(provider);
+    }
+
+    @Test
+    @DisplayName("Должен повторять запрос на основной БД, если реплика недоступна до первой строки")
+    void shouldFallBackBeforeFirstRow() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Flux<String> query = Flux.deferContextual(context -> subscriptions.incrementAndGet() == 1
+                ? Flux.error(new DataAccessResourceFailureException("replica is down"))
+                : Flux.just(context.hasKey(ReadRouting.REPLICA) ? "replica" : "primary", "second"));
+
+        StepVerifier.create(readRouting.read(query))
+                .expectNext("primary", "second")
+                .verifyComplete();
+
+        verify(replica).markUnavailable(any(DataAccessResourceFailureException.class));
+    }
+
+    @Test
+    @DisplayName("Не должен повторять запрос, если реплика отказала после первой строки")
+    void shouldNotFallBackAfterFirstRow() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Flux<String> query = Flux.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Flux.concat(Flux.just("first"), Flux.error(new DataAccessResourceFailureException("replica is down")));
+        });
+
+        StepVerifier.create(readRouting.read(query))
+                .expectNext("first")
+                .verifyError(DataAccessResourceFailureException.class);
+
+        assertThat(subscriptions).hasValue(1);
+        verify(replica, never()).markUnavailable(any());
+    }
+
+    @Test
+    @DisplayName("Должен направлять на основную БД запросы пользователя, недавно изменявшего подписки")
+    void shouldBypassReplicaForRecentWriter() {
+        readRouting.onSaved(new SubscriptionSavedEvent(Subscription.builder().id(1L).userId(7L).build()));
+        readRouting.onDeleted(new SubscriptionDeletedEvent(2L, 8L));
+
+        StepVerifier.create(readRouting.readFor(7L, routedTo()))
+                .expectNext("primary")
+                .verifyComplete();
+        StepVerifier.create(readRouting.readFor(8L, routedTo()))
+                .expectNext("primary")
+                .verifyComplete();
+        StepVerifier.create(readRouting.readFor(9L, routedTo()))
+                .expectNext("replica")
+                .verifyComplete();
+    }
+
+    private static Mono<String> routedTo() {
+        return Mono.deferContextual(context -> Mono.just(context.hasKey(ReadRouting.REPLICA) ? "replica" : "primary"));
+    }
+}
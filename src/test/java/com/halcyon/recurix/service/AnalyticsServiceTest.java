@@ -0,0 +1,136 @@
+package com.halcyon.recurix.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.halcyon.recurix.cache.AnalyticsCache;
+import com.halcyon.recurix.cache.UserDataVersions;
+import com.halcyon.recurix.dto.AnalyticsDto;
+import com.halcyon.recurix.model.RecurixUser;
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.repository.AnalyticsRepository;
+import com.halcyon.recurix.repository.routing.ReadRouting;
+import com.halcyon.recurix.support.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Модульные тесты для выбора источника месячной сводки в {@link AnalyticsService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class AnalyticsServiceTest {
+
+    private static final RecurixUser USER = new RecurixUser(1L, 42L, "Тест", null);
+    private static final YearMonth MONTH = YearMonth.of(2026, 10);
+
+    @Mock
+    private AnalyticsRepository analyticsRepository;
+
+    @Mock
+    private UserDataVersions dataVersions;
+
+    @Mock
+    private SpendingAggregatesService spendingAggregates;
+
+    @Mock
+    private ReadRouting readRouting;
+
+    private AnalyticsService analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        analyticsService = new AnalyticsService(
+                analyticsRepository,
+                new AnalyticsCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10)),
+                dataVersions,
+                spendingAggregates,
+                readRouting);
+
+        when(dataVersions.current(USER.id())).thenReturn(Mono.just(3L));
+    }
+
+    @Test
+    @DisplayName("Должен брать суммы покрытого месяца из агрегатов и читать сводку для кэша с основной БД")
+    void shouldReadCoveredMonthFromAggregates() {
+        AnalyticsDto aggregated = analytics("499.00", subscription("Кино"));
+        when(spendingAggregates.covers(MONTH)).thenReturn(Mono.just(true));
+        when(analyticsRepository.findAggregatedMonthAnalytics(USER.id(), MONTH.atDay(1), MONTH.atEndOfMonth()))
+                .thenReturn(Mono.just(aggregated));
+
+        StepVerifier.create(analyticsService.getAnalyticsForMonth(USER, MONTH))
+                .assertNext(dto -> {
+                    assertThat(dto.monthlyTotal()).isEqualTo(Money.of(new BigDecimal("499.00")));
+                    assertThat(dto.mostExpensive().getName()).isEqualTo("Кино");
+                })
+                .verifyComplete();
+
+        verify(analyticsRepository, never()).findMonthAnalytics(any(), any(), any());
+        verifyNoInteractions(readRouting);
+    }
+
+    @Test
+    @DisplayName("Должен считать месяц за границей покрытия по подпискам")
+    void shouldReadUncoveredMonthFromSubscriptions() {
+        when(spendingAggregates.covers(MONTH)).thenReturn(Mono.just(false));
+        when(analyticsRepository.findMonthAnalytics(USER.id(), MONTH.atDay(1), MONTH.atEndOfMonth()))
+                .thenReturn(Mono.just(analytics("199.00", subscription("Музыка"))));
+
+        StepVerifier.create(analyticsService.getAnalyticsForMonth(USER, MONTH))
+                .assertNext(dto -> assertThat(dto.monthlyTotal()).isEqualTo(Money.of(new BigDecimal("199.00"))))
+                .verifyComplete();
+
+        verify(analyticsRepository, never()).findAggregatedMonthAnalytics(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен показывать сумму месяца из агрегатов, даже если самой дорогой подписки по подпискам нет")
+    void shouldKeepAggregatedTotalWithoutMostExpensive() {
+        when(spendingAggregates.covers(MONTH)).thenReturn(Mono.just(true));
+        when(analyticsRepository.findAggregatedMonthAnalytics(USER.id(), MONTH.atDay(1), MONTH.atEndOfMonth()))
+                .thenReturn(Mono.just(analytics("299.00", null)));
+
+        StepVerifier.create(analyticsService.getAnalyticsForMonth(USER, MONTH))
+                .assertNext(dto -> {
+                    assertThat(dto.monthlyTotal()).isEqualTo(Money.of(new BigDecimal("299.00")));
+                    assertThat(dto.mostExpensive()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    private static AnalyticsDto analytics(String total, Subscription mostExpensive) {
+        return AnalyticsDto.builder()
+                .totalSubscriptions(1)
+                .monthlyTotal(Money.of(new BigDecimal(total)))
+                .spendingByCategory(List.of())
+                .mostExpensive(mostExpensive)
+                .nextPayment(mostExpensive)
+                .build();
+    }
+
+    private static Subscription subscription(String name) {
+        return Subscription.builder()
+                .id(7L)
+                .userId(USER.id())
+                .name(name)
+                .price(new BigDecimal("499.00"))
+                .paymentDate(LocalDate.of(2026, 10, 25))
+                .renewalMonths(1)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.halcyon.recurix.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.halcyon.recurix.dto.MonthCategoryDeltaDto;
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.repository.MonthlyTotalsRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Модульные тесты для вычисления изменений и границы покрытия месячных агрегатов {@link SpendingAggregatesService}.
+ */
+class SpendingAggregatesServiceTest {
+
+    private static final YearMonth UNTIL = YearMonth.of(2025, 3);
+
+    @Test
+    @DisplayName("Должен добавлять платежи новой подписки по месяцам до границы покрытия")
+    void shouldAddOccurrencesOfCreatedSubscription() {
+        List<MonthCategoryDeltaDto> deltas = SpendingAggregatesService.deltas(
+                List.of(),
+                List.of(subscription("9.99", LocalDate.of(2025, 1, 31), 1, null)),
+                UNTIL);
+
+        assertThat(deltas).extracting(MonthCategoryDeltaDto::month).containsExactly(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1));
+        assertThat(deltas).allSatisfy(delta -> {
+            assertThat(delta.category()).isEmpty();
+            assertThat(delta.total()).isEqualByComparingTo("9.99");
+            assertThat(delta.payments()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    @DisplayName("Должен переносить сумму между категориями при изменении подписки")
+    void shouldMoveTotalsBetweenCategories() {
+        List<MonthCategoryDeltaDto> deltas = SpendingAggregatesService.deltas(
+                List.of(subscription("100.00", LocalDate.of(2025, 3, 10), 0, "Музыка")),
+                List.of(subscription("120.00", LocalDate.of(2025, 3, 10), 0, "Кино")),
+                UNTIL);
+
+        assertThat(deltas).hasSize(2);
+        assertThat(deltas.get(0).category()).isEqualTo("Музыка");
+        assertThat(deltas.get(0).total()).isEqualByComparingTo("-100.00");
+        assertThat(deltas.get(0).payments()).isEqualTo(-1);
+        assertThat(deltas.get(1).category()).isEqualTo("Кино");
+        assertThat(deltas.get(1).total()).isEqualByComparingTo("120.00");
+        assertThat(deltas.get(1).payments()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Не должен менять агрегаты, если подписка сохранена без изменений")
+    void shouldSkipUnchangedSubscription() {
+        Subscription subscription = subscription("100.00", LocalDate.of(2025, 1, 15), 1, "Музыка");
+
+        assertThat(SpendingAggregatesService.deltas(List.of(subscription), List.of(subscription), UNTIL)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Должен читать границу покрытия из БД, пока она не загружена при старте")
+    void shouldReadCoverageBeforeItIsLoaded() {
+        MonthlyTotalsRepository totalsRepository = mock(MonthlyTotalsRepository.class);
+        when(totalsRepository.findCoveredUntil()).thenReturn(Mono.just(UNTIL.atDay(1)));
+        SpendingAggregatesService service = new SpendingAggregatesService(totalsRepository, 24);
+
+        StepVerifier.create(service.covers(UNTIL)).expectNext(true).verifyComplete();
+        StepVerifier.create(service.covers(UNTIL.plusMonths(1))).expectNext(false).verifyComplete();
+    }
+
+    private static Subscription subscription(String price, LocalDate paymentDate, int renewalMonths, String category) {
+        return Subscription.builder()
+                .id(1L)
+                .userId(7L)
+                .price(new BigDecimal(price))
+                .paymentDate(paymentDate)
+                .renewalMonths(renewalMonths)
+                .category(category)
+                .build();
+    }
+}
@@ -0,0 +1,206 @@
+package com.halcyon.recurix.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.halcyon.recurix.cache.SubscriptionSnapshotCache;
+import com.halcyon.recurix.cache.UserDataVersions;
+import com.halcyon.recurix.dto.SubscriptionPageRowDto;
+import com.halcyon.recurix.event.SubscriptionDeletedEvent;
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.repository.SubscriptionRepository;
+import com.halcyon.recurix.repository.routing.ReadRouting;
+import com.halcyon.recurix.service.pagination.Page;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Модульные тесты для постраничного чтения подписок в {@link SubscriptionService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class SubscriptionServiceTest {
+
+    private static final long USER_ID = 42L;
+    private static final int MAX_SNAPSHOT_SUBSCRIPTIONS = 3;
+    private static final LocalDate PAYMENT_DATE = LocalDate.now().plusDays(10);
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserDataVersions dataVersions;
+
+    @Mock
+    private SpendingAggregatesService spendingAggregates;
+
+    @Mock
+    private ReadRouting readRouting;
+
+    private SubscriptionService subscriptionService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        subscriptionService = new SubscriptionService(
+                subscriptionRepository,
+                transactionalOperator,
+                eventPublisher,
+                dataVersions,
+                spendingAggregates,
+                readRouting,
+                new SubscriptionSnapshotCache(new SimpleMeterRegistry(), 1 << 20, Duration.ofMinutes(10), MAX_SNAPSHOT_SUBSCRIPTIONS));
+
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(readRouting.readFor(anyLong(), any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        lenient().when(readRouting.readFor(anyLong(), any(Flux.class))).thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
+    @Test
+    @DisplayName("Должен собирать страницу из строк БД с общим количеством, если подписок больше, чем помещается в снимок")
+    void shouldBuildPageFromDatabaseRows() {
+        givenTooManyForSnapshot();
+        when(subscriptionRepository.findPageByUserIdOrderByPrice(USER_ID, true, 2, 2L))
+                .thenReturn(Flux.just(row(3, "300.00", 5), row(4, "400.00", 5)));
+
+        StepVerifier.create(subscriptionService.getSubscriptionsAsPage(USER_ID, byPrice(1)))
+                .assertNext(page -> {
+                    assertThat(ids(page)).containsExactly(3L, 4L);
+                    assertThat(page.content().get(0).getPrice()).isEqualByComparingTo("300.00");
+                    assertThat(page.currentPage()).isEqualTo(1);
+                    assertThat(page.totalPages()).isEqualTo(3);
+                    assertThat(page.totalElements()).isEqualTo(5);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Должен возвращать последнюю страницу из БД, если запрошенная оказалась за концом списка")
+    void shouldFallBackToLastDatabasePage() {
+        givenTooManyForSnapshot();
+        when(subscriptionRepository.findPageByUserIdOrderByPrice(USER_ID, true, 2, 8L)).thenReturn(Flux.empty());
+        when(subscriptionRepository.countByUserId(USER_ID)).thenReturn(Mono.just(5));
+        when(subscriptionRepository.findPageByUserIdOrderByPrice(USER_ID, true, 2, 4L))
+                .thenReturn(Flux.just(row(5, "500.00", 5)));
+
+        StepVerifier.create(subscriptionService.getSubscriptionsAsPage(USER_ID, byPrice(4)))
+                .assertNext(page -> {
+                    assertThat(ids(page)).containsExactly(5L);
+                    assertThat(page.currentPage()).isEqualTo(2);
+                    assertThat(page.totalPages()).isEqualTo(3);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Должен возвращать первую страницу из БД, если у пользователя не осталось подписок")
+    void shouldReturnEmptyFirstPageWhenNothingLeft() {
+        givenTooManyForSnapshot();
+        when(subscriptionRepository.findPageByUserIdOrderByPrice(USER_ID, true, 2, 2L)).thenReturn(Flux.empty());
+        when(subscriptionRepository.countByUserId(USER_ID)).thenReturn(Mono.just(0));
+
+        StepVerifier.create(subscriptionService.getSubscriptionsAsPage(USER_ID, byPrice(1)))
+                .assertNext(page -> {
+                    assertThat(page.content()).isEmpty();
+                    assertThat(page.currentPage()).isZero();
+                    assertThat(page.totalPages()).isEqualTo(1);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Должен после удаления единственной подписки последней страницы показывать предыдущую страницу из снимка, прочитанного с основной БД")
+    void shouldShowPreviousPageAfterDeletingLastItem() {
+        Subscription first = subscription(1, "100.00");
+        Subscription second = subscription(2, "200.00");
+        Subscription last = subscription(3, "300.00");
+
+        when(dataVersions.current(USER_ID)).thenReturn(Mono.just(1L), Mono.just(2L));
+        when(subscriptionRepository.findAllByUserIdLimited(USER_ID, MAX_SNAPSHOT_SUBSCRIPTIONS + 1))
+                .thenReturn(Flux.just(first, second, last), Flux.just(first, second));
+        when(subscriptionRepository.deleteReturning(3L)).thenReturn(Mono.just(last));
+        when(spendingAggregates.replace(List.of(last), List.of())).thenReturn(Mono.empty());
+        when(dataVersions.bump(USER_ID)).thenReturn(Mono.just(2L));
+
+        StepVerifier.create(subscriptionService.getSubscriptionsAsPage(USER_ID, byPrice(1)))
+                .assertNext(page -> assertThat(ids(page)).containsExactly(3L))
+                .verifyComplete();
+
+        StepVerifier.create(subscriptionService.deleteById(3L)
+                        .then(Mono.defer(() -> subscriptionService.getSubscriptionsAsPage(USER_ID, byPrice(1)))))
+                .assertNext(page -> {
+                    assertThat(ids(page)).containsExactly(1L, 2L);
+                    assertThat(page.currentPage()).isZero();
+                    assertThat(page.totalPages()).isEqualTo(1);
+                    assertThat(page.totalElements()).isEqualTo(2);
+                })
+                .verifyComplete();
+
+        InOrder order = inOrder(eventPublisher, dataVersions);
+        order.verify(eventPublisher).publishEvent(new SubscriptionDeletedEvent(3L, USER_ID));
+        order.verify(dataVersions).bump(USER_ID);
+        verify(readRouting, never()).readFor(anyLong(), any(Flux.class));
+    }
+
+    private void givenTooManyForSnapshot() {
+        when(dataVersions.current(USER_ID)).thenReturn(Mono.just(1L));
+        when(subscriptionRepository.findAllByUserIdLimited(USER_ID, MAX_SNAPSHOT_SUBSCRIPTIONS + 1))
+                .thenReturn(Flux.just(
+                        subscription(1, "100.00"),
+                        subscription(2, "200.00"),
+                        subscription(3, "300.00"),
+                        subscription(4, "400.00")));
+    }
+
+    private static PageRequest byPrice(int pageNumber) {
+        return PageRequest.of(pageNumber, 2, Sort.by(Sort.Direction.ASC, "price"));
+    }
+
+    private static List<Long> ids(Page<Subscription> page) {
+        return page.content().stream().map(Subscription::getId).toList();
+    }
+
+    private static Subscription subscription(long id, String price) {
+        return Subscription.builder()
+                .id(id)
+                .userId(USER_ID)
+                .name("Подписка " + id)
+                .price(new BigDecimal(price))
+                .paymentDate(PAYMENT_DATE)
+                .renewalMonths(1)
+                .build();
+    }
+
+    private static SubscriptionPageRowDto row(long id, String price, long totalCount) {
+        return new SubscriptionPageRowDto(
+                id, USER_ID, "Подписка " + id, new BigDecimal(price), PAYMENT_DATE, 1, null, totalCount);
+    }
+}
@@ -0,0 +1,125 @@
+package com.halcyon.recurix.service.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.halcyon.recurix.model.Subscription;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Модульные тесты для двоичных кодеков контекстов диалога.
+ */
+class SubscriptionContextCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final SubscriptionContextCodec codec = new SubscriptionContextCodec(
+            new Jackson2JsonRedisSerializer<>(objectMapper, SubscriptionContext.class));
+    private final SubscriptionListContextCodec listCodec = new SubscriptionListContextCodec(
+            new Jackson2JsonRedisSerializer<>(objectMapper, SubscriptionListContext.class));
+
+    @Test
+    @DisplayName("Должен восстанавливать контекст подписки без потерь")
+    void shouldRoundTripContext() {
+        var context = new SubscriptionContext(subscription("Музыка", new BigDecimal("299.90")), 4512, 3);
+
+        SubscriptionContext decoded = codec.deserialize(codec.serialize(context));
+
+        assertThat(decoded.getMessageToEditId()).isEqualTo(4512);
+        assertThat(decoded.getPageNumber()).isEqualTo(3);
+        assertThat(decoded.getSubscription())
+                .usingRecursiveComparison()
+                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .isEqualTo(context.getSubscription());
+    }
+
+    @Test
+    @DisplayName("Должен сохранять незаполненные поля и цену с дробными копейками")
+    void shouldKeepNullsAndFractionalPrice() {
+        var subscription = new Subscription();
+        subscription.setRenewalMonths(null);
+        subscription.setName("Новая");
+        subscription.setPrice(new BigDecimal("9.999"));
+        subscription.setCategory("Своя категория");
+
+        SubscriptionContext decoded = codec.deserialize(codec.serialize(new SubscriptionContext(subscription)));
+
+        assertThat(decoded.getMessageToEditId()).isNull();
+        assertThat(decoded.getSubscription().getId()).isNull();
+        assertThat(decoded.getSubscription().getRenewalMonths()).isNull();
+        assertThat(decoded.getSubscription().getPaymentDate()).isNull();
+        assertThat(decoded.getSubscription().getPrice()).isEqualTo(new BigDecimal("9.999"));
+        assertThat(decoded.getSubscription().getCategory()).isEqualTo("Своя категория");
+    }
+
+    @Test
+    @DisplayName("Должен кодировать контекст значительно компактнее JSON")
+    void shouldBeSmallerThanJson() throws Exception {
+        var context = new SubscriptionContext(subscription("Стриминг", new BigDecimal("599.00")), 4512, 0);
+
+        byte[] json = objectMapper.writeValueAsBytes(context);
+
+        assertThat(codec.serialize(context)).hasSizeLessThan(json.length / 3);
+    }
+
+    @Test
+    @DisplayName("Должен читать контексты, записанные в прежнем JSON-формате")
+    void shouldReadLegacyJson() {
+        String json = """
+                {"@class":"com.halcyon.recurix.service.context.SubscriptionContext",
+                 "subscription":{"id":7,"userId":42,"name":"Кино","price":349.00,
+                 "paymentDate":"2025-03-15","renewalMonths":1,"category":"Кино"},
+                 "messageToEditId":100,"pageNumber":null}""";
+
+        SubscriptionContext decoded = codec.deserialize(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(decoded.getMessageToEditId()).isEqualTo(100);
+        assertThat(decoded.getSubscription().getPaymentDate()).isEqualTo(LocalDate.of(2025, 3, 15));
+        assertThat(listCodec.deserialize("{\"sortField\":\"price\",\"sortDirection\":\"DESC\"}".getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo(new SubscriptionListContext("price", Sort.Direction.DESC));
+    }
+
+    @Test
+    @DisplayName("Должен восстанавливать контекст списка")
+    void shouldRoundTripListContext() {
+        var known = new SubscriptionListContext("paymentDate", Sort.Direction.ASC);
+        var custom = new SubscriptionListContext("name", null);
+
+        assertThat(listCodec.serialize(known)).hasSize(3);
+        assertThat(listCodec.deserialize(listCodec.serialize(known))).isEqualTo(known);
+        assertThat(listCodec.deserialize(listCodec.serialize(custom))).isEqualTo(custom);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять неизвестную версию формата")
+    void shouldRejectUnknownVersion() {
+        assertThatThrownBy(() -> codec.deserialize(new byte[] {9, 0}))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> codec.deserialize(new byte[] {SubscriptionContextCodec.VERSION, 0x21}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static Subscription subscription(String category, BigDecimal price) {
+        return Subscription.builder()
+                .id(123_456L)
+                .userId(987_654_321L)
+                .name("Яндекс Плюс")
+                .price(price)
+                .paymentDate(LocalDate.of(2025, 1, 31))
+                .renewalMonths(12)
+                .category(category)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.halcyon.recurix.service.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.service.context.SubscriptionListContext;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Модульные тесты для курсора страницы {@link PageCursor}.
+ */
+class PageCursorTest {
+
+    private static final Subscription SUBSCRIPTION = Subscription.builder()
+            .id(48_213L)
+            .price(new BigDecimal("1299.90"))
+            .paymentDate(LocalDate.of(2026, 11, 3))
+            .build();
+
+    @Test
+    @DisplayName("Должен восстанавливать курсор по дате из callback-данных")
+    void shouldRoundTripDateCursor() {
+        var context = new SubscriptionListContext("paymentDate", Sort.Direction.ASC);
+
+        PageCursor decoded = PageCursor.decode(PageCursor.after(context, 3, SUBSCRIPTION).encode());
+
+        assertThat(decoded.listContext()).isEqualTo(context);
+        assertThat(decoded.forward()).isTrue();
+        assertThat(decoded.page()).isEqualTo(3);
+        assertThat(decoded.paymentDate()).isEqualTo(LocalDate.of(2026, 11, 3));
+        assertThat(decoded.id()).isEqualTo(48_213L);
+        assertThat(decoded.seekAscending()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Должен восстанавливать курсор по цене и читать назад по возрастанию при сортировке по убыванию")
+    void shouldRoundTripPriceCursor() {
+        var context = new SubscriptionListContext("price", Sort.Direction.DESC);
+
+        PageCursor decoded = PageCursor.decode(PageCursor.before(context, 0, SUBSCRIPTION).encode());
+
+        assertThat(decoded.listContext()).isEqualTo(context);
+        assertThat(decoded.forward()).isFalse();
+        assertThat(decoded.price()).isEqualByComparingTo("1299.90");
+        assertThat(decoded.seekAscending()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Должен укладываться в лимит callback-данных Telegram")
+    void shouldFitCallbackDataLimit() {
+        var context = new SubscriptionListContext("price", Sort.Direction.DESC);
+        var expensive = Subscription.builder()
+                .id(Long.MAX_VALUE)
+                .price(new BigDecimal("99999999.99"))
+                .paymentDate(LocalDate.of(2026, 1, 1))
+                .build();
+
+        String data = "sub_list_page_" + PageCursor.after(context, 9_999, expensive).encode();
+
+        assertThat(data.getBytes()).hasSizeLessThanOrEqualTo(64);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять строку, которая не является курсором")
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> PageCursor.decode("xan1.2.3"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode("dan1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,90 @@
+package com.halcyon.recurix.service.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.halcyon.recurix.model.Subscription;
+import com.halcyon.recurix.service.context.SubscriptionListContext;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Модульные тесты для снимка подписок {@link SubscriptionSnapshot}.
+ */
+class SubscriptionSnapshotTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+
+    private final SubscriptionSnapshot snapshot = SubscriptionSnapshot.of(List.of(
+            subscription(1, "199.00", LocalDate.of(2026, 10, 25)),
+            subscription(2, "299.00", LocalDate.of(2026, 10, 20)),
+            subscription(3, "199.00", LocalDate.of(2026, 11, 2)),
+            subscription(4, "99.00", LocalDate.of(2026, 10, 20)),
+            subscription(5, "999.00", LocalDate.of(2026, 12, 1))), TODAY);
+
+    @Test
+    @DisplayName("Должен строить страницы по цене в обоих направлениях с упорядочиванием по ID при равенстве")
+    void shouldPageByPrice() {
+        assertThat(ids(snapshot.page("price", Sort.Direction.ASC, 0, 3))).containsExactly(4L, 1L, 3L);
+        assertThat(ids(snapshot.page("price", Sort.Direction.ASC, 1, 3))).containsExactly(2L, 5L);
+        assertThat(ids(snapshot.page("price", Sort.Direction.DESC, 0, 3))).containsExactly(5L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Должен сортировать по ближайшей дате платежа, а не по хранимой")
+    void shouldSortByEffectiveDate() {
+        var lagging = SubscriptionSnapshot.of(List.of(
+                subscription(1, "100.00", LocalDate.of(2026, 10, 25)),
+                subscription(2, "100.00", LocalDate.of(2026, 9, 21))), TODAY);
+
+        Page<Subscription> page = lagging.page("paymentDate", Sort.Direction.ASC, 0, 5);
+
+        assertThat(ids(page)).containsExactly(2L, 1L);
+        assertThat(page.content().get(0).getPaymentDate()).isEqualTo(LocalDate.of(2026, 10, 21));
+    }
+
+    @Test
+    @DisplayName("Должен переходить по курсору вперед и назад так же, как по номеру страницы")
+    void shouldNavigateByCursor() {
+        var context = new SubscriptionListContext("paymentDate", Sort.Direction.DESC);
+        Page<Subscription> first = snapshot.page("paymentDate", Sort.Direction.DESC, 0, 2);
+
+        Page<Subscription> second = snapshot.page(PageCursor.after(context, 1, first.content().get(1)), 2);
+        Page<Subscription> back = snapshot.page(PageCursor.before(context, 0, second.content().get(0)), 2);
+
+        assertThat(ids(second)).isEqualTo(ids(snapshot.page("paymentDate", Sort.Direction.DESC, 1, 2)));
+        assertThat(second.currentPage()).isEqualTo(1);
+        assertThat(ids(back)).isEqualTo(ids(first));
+        assertThat(first.totalPages()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Должен продолжать от ключа удаленной граничной строки и возвращать последнюю страницу за концом списка")
+    void shouldHandleRemovedRows() {
+        var context = new SubscriptionListContext("price", Sort.Direction.ASC);
+        var removed = subscription(6, "250.00", TODAY);
+
+        assertThat(ids(snapshot.page(PageCursor.after(context, 1, removed), 2))).containsExactly(2L, 5L);
+        assertThat(ids(snapshot.page(PageCursor.after(context, 3, subscription(7, "5000.00", TODAY)), 2)))
+                .containsExactly(5L);
+        assertThat(snapshot.page("price", Sort.Direction.ASC, 9, 2).currentPage()).isEqualTo(2);
+    }
+
+    private static List<Long> ids(Page<Subscription> page) {
+        return page.content().stream().map(Subscription::getId).toList();
+    }
+
+    private static Subscription subscription(long id, String price, LocalDate paymentDate) {
+        return Subscription.builder()
+                .id(id)
+                .userId(42L)
+                .name("Подписка " + id)
+                .price(new BigDecimal(price))
+                .paymentDate(paymentDate)
+                .renewalMonths(1)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.halcyon.recurix.service.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Модульные тесты для хранилища диалогов в памяти {@link InMemoryConversationStateStore}.
+ */
+class InMemoryConversationStateStoreTest {
+
+    private static final long USER_ID = 42L;
+
+    private static final byte[] NAME_STEP = bytes("AWAITING_SUBSCRIPTION_NAME");
+    private static final byte[] PRICE_STEP = bytes("AWAITING_SUBSCRIPTION_PRICE");
+    private static final byte[] CONTEXT = {1, 0x22, 4};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Должен записывать и удалять отдельные поля диалога")
+    void shouldPutAndRemoveFields() {
+        var store = store("");
+
+        store.put(USER_ID, Map.of(ConversationFields.STATE, NAME_STEP, ConversationFields.CONTEXT, CONTEXT)).block();
+        store.remove(USER_ID, ConversationFields.STATE).block();
+
+        ConversationFields fields = store.load(USER_ID).block();
+        assertThat(fields.state()).isNull();
+        assertThat(fields.context()).isEqualTo(CONTEXT);
+
+        store.delete(USER_ID).block();
+        assertThat(store.load(USER_ID).block()).isEqualTo(ConversationFields.EMPTY);
+    }
+
+    @Test
+    @DisplayName("Должен выполнять переход только из ожидаемого шага")
+    void shouldTransitionOnlyFromExpectedState() {
+        var store = store("");
+        store.put(USER_ID, Map.of(ConversationFields.STATE, NAME_STEP)).block();
+
+        assertThat(store.transition(USER_ID, NAME_STEP, CONTEXT, PRICE_STEP).block()).isTrue();
+        assertThat(store.transition(USER_ID, NAME_STEP, new byte[] {9}, null).block()).isFalse();
+
+        ConversationFields fields = store.load(USER_ID).block();
+        assertThat(fields.state()).isEqualTo(PRICE_STEP);
+        assertThat(fields.context()).isEqualTo(CONTEXT);
+    }
+
+    @Test
+    @DisplayName("Должен сохранять диалоги в снимок при остановке и восстанавливать при старте")
+    void shouldRestoreSnapshot() {
+        String snapshot = tempDir.resolve("conversations.bin").toString();
+        var store = store(snapshot);
+        store.put(USER_ID, Map.of(ConversationFields.STATE, NAME_STEP, ConversationFields.CONTEXT, CONTEXT)).block();
+        store.put(7L, Map.of(ConversationFields.LIST_CONTEXT, new byte[] {1, 2, 2})).block();
+
+        store.writeSnapshot();
+        var restored = store(snapshot);
+
+        assertThat(restored.load(USER_ID).block().state()).isEqualTo(NAME_STEP);
+        assertThat(restored.load(USER_ID).block().context()).isEqualTo(CONTEXT);
+        assertThat(restored.load(USER_ID).block().listContext()).isNull();
+        assertThat(restored.load(7L).block().listContext()).containsExactly(1, 2, 2);
+    }
+
+    private static InMemoryConversationStateStore store(String snapshotPath) {
+        return new InMemoryConversationStateStore(new SimpleMeterRegistry(), 1 << 20, snapshotPath);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,58 @@
+package com.halcyon.recurix.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Модульные тесты для денежных сумм {@link Money}.
+ */
+class MoneyTest {
+
+    @Test
+    @DisplayName("Должен переводить цену в копейки и обратно с округлением до копейки")
+    void shouldConvertToMinorUnits() {
+        assertThat(Money.of(new BigDecimal("199.995")).minorUnits()).isEqualTo(20_000);
+        assertThat(Money.of(null)).isEqualTo(Money.ZERO);
+        assertThat(Money.ofMinor(12_345).toBigDecimal()).isEqualByComparingTo("123.45");
+    }
+
+    @Test
+    @DisplayName("Должен складывать и сравнивать суммы без потери точности")
+    void shouldAddAndCompare() {
+        Money total = Money.of(new BigDecimal("0.10")).plus(Money.of(new BigDecimal("0.20")));
+
+        assertThat(total).isEqualTo(Money.of(new BigDecimal("0.3")));
+        assertThat(total.minus(total).isZero()).isTrue();
+        assertThat(Money.ofMinor(1)).isGreaterThan(Money.ZERO);
+    }
+
+    @ParameterizedTest(name = "{0} из {1} = {2}%")
+    @CsvSource({
+            "1, 3, 33",
+            "2, 3, 67",
+            "1, 8, 13",
+            "12495, 100000, 12",
+            "12500, 100000, 13",
+            "5, 0, 0"
+    })
+    @DisplayName("Должен считать процент с округлением половины вверх, как BigDecimal HALF_UP")
+    void shouldComputePercentage(long part, long total, long expected) {
+        assertThat(Money.ofMinor(part).percentOf(Money.ofMinor(total))).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Должен запрещать операции с разными валютами")
+    void shouldRejectCurrencyMismatch() {
+        Money dollars = new Money(100, Currency.getInstance("USD"));
+
+        assertThatThrownBy(() -> Money.ofMinor(100).plus(dollars))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
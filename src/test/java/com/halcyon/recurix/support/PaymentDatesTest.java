@@ -0,0 +1,53 @@
+package com.halcyon.recurix.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Модульные тесты для утилитарного класса {@link PaymentDates}.
+ */
+class PaymentDatesTest {
+
+    @ParameterizedTest(name = "Опорная дата {0}, период {1} мес., на {2} -> {3}")
+    @CsvSource({
+            "2025-03-15, 1,  2025-03-10, 2025-03-15",
+            "2025-03-15, 1,  2025-03-15, 2025-03-15",
+            "2025-03-15, 1,  2025-03-16, 2025-04-15",
+            "2025-01-15, 1,  2025-06-20, 2025-07-15",
+            "2025-01-15, 1,  2025-06-10, 2025-06-15",
+            "2024-03-01, 12, 2025-05-01, 2026-03-01",
+            "2025-01-10, 3,  2025-04-10, 2025-04-10",
+            "2025-01-31, 1,  2025-02-28, 2025-02-28"
+    })
+    @DisplayName("Должен вычислять ближайшую дату платежа с учетом пропущенных периодов")
+    void shouldCalculateEffectiveDate(LocalDate anchor, int renewalMonths, LocalDate onDate, LocalDate expected) {
+        assertThat(PaymentDates.effective(anchor, renewalMonths, onDate)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Должен возвращать опорную дату, если период продления не задан")
+    void shouldReturnAnchorWhenRenewalMonthsMissing() {
+        LocalDate anchor = LocalDate.of(2025, 1, 15);
+
+        assertThat(PaymentDates.effective(anchor, null, LocalDate.of(2025, 6, 1))).isEqualTo(anchor);
+    }
+
+    @Test
+    @DisplayName("Должен считать следующим платежом регулярную подписку, а не прошедшую разовую")
+    void shouldSkipPastOneOffWhenLookingForUpcomingPayment() {
+        LocalDate onDate = LocalDate.of(2025, 6, 1);
+        LocalDate pastOneOff = LocalDate.of(2025, 5, 3);
+        LocalDate futureRecurring = LocalDate.of(2025, 6, 20);
+
+        assertThat(PaymentDates.effective(pastOneOff, 0, onDate)).isEqualTo(pastOneOff);
+        assertThat(PaymentDates.upcoming(pastOneOff, 0, onDate)).isNull();
+        assertThat(PaymentDates.upcoming(futureRecurring, 1, onDate)).isEqualTo(futureRecurring);
+        assertThat(PaymentDates.upcoming(LocalDate.of(2025, 5, 20), 1, onDate)).isEqualTo(futureRecurring);
+        assertThat(PaymentDates.upcoming(onDate, 0, onDate)).isEqualTo(onDate);
+    }
+}
@@ -0,0 +1,88 @@
+package com.halcyon.recurix.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.halcyon.recurix.model.Subscription;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Модульные тесты для проекции платежей {@link SpendingProjection}.
+ */
+class SpendingProjectionTest {
+
+    private final SpendingProjection projection = SpendingProjection.of(List.of(
+            subscription(1L, "100.00", LocalDate.of(2025, 3, 15), 12),
+            subscription(2L, "9.99", LocalDate.of(2024, 12, 31), 1),
+            subscription(3L, "50.00", LocalDate.of(2025, 6, 1), 0)));
+
+    @Test
+    @DisplayName("Должен не перебирать прошедший разовый платеж, хотя ближайшей датой остается опорная")
+    void shouldSkipPastOneOffPayment() {
+        long anchor = LocalDate.of(2025, 6, 1).toEpochDay();
+        long onDay = LocalDate.of(2025, 7, 1).toEpochDay();
+        List<Long> days = new ArrayList<>();
+
+        projection.forEachOccurrence(onDay, LocalDate.of(2026, 12, 31).toEpochDay(), (index, day) -> {
+            if (projection.subscriptionId(index) == 3L) {
+                days.add(day);
+            }
+        });
+
+        assertThat(days).isEmpty();
+        assertThat(SpendingProjection.nextOnOrAfter(anchor, 0, onDay)).isEqualTo(anchor);
+    }
+
+    @Test
+    @DisplayName("Должен перебирать платежи по тем же датам, что и вычисление ближайшей даты")
+    void shouldAgreeWithNextOnOrAfter() {
+        long anchor = LocalDate.of(2025, 3, 15).toEpochDay();
+        List<Long> days = new ArrayList<>();
+
+        projection.forEachOccurrence(
+                LocalDate.of(2025, 4, 1).toEpochDay(),
+                LocalDate.of(2027, 12, 31).toEpochDay(),
+                (index, day) -> {
+                    if (projection.subscriptionId(index) == 1L) {
+                        days.add(day);
+                    }
+                });
+
+        assertThat(days).containsExactly(
+                SpendingProjection.nextOnOrAfter(anchor, 12, LocalDate.of(2025, 4, 1).toEpochDay()),
+                SpendingProjection.nextOnOrAfter(anchor, 12, LocalDate.of(2026, 3, 16).toEpochDay()));
+    }
+
+    @Test
+    @DisplayName("Должен сохранять день месяца опорной даты для коротких месяцев")
+    void shouldClampToMonthEnd() {
+        List<LocalDate> payments = new ArrayList<>();
+        projection.forEachOccurrence(
+                LocalDate.of(2025, 1, 1).toEpochDay(),
+                LocalDate.of(2025, 4, 30).toEpochDay(),
+                (index, day) -> {
+                    if (projection.subscriptionId(index) == 2L) {
+                        payments.add(LocalDate.ofEpochDay(day));
+                    }
+                });
+
+        assertThat(payments).containsExactly(
+                LocalDate.of(2025, 1, 31),
+                LocalDate.of(2025, 2, 28),
+                LocalDate.of(2025, 3, 31),
+                LocalDate.of(2025, 4, 30));
+    }
+
+    private static Subscription subscription(Long id, String price, LocalDate paymentDate, int renewalMonths) {
+        return Subscription.builder()
+                .id(id)
+                .price(new BigDecimal(price))
+                .paymentDate(paymentDate)
+                .renewalMonths(renewalMonths)
+                .build();
+    }
+}